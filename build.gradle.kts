@@ -5,6 +5,8 @@ plugins {
     id("io.freefair.lombok") version "8.6"
     // Shade libraries into one "UberJar"
     id("io.github.goooler.shadow") version "8.1.8"
+    // Benchmarks in src/jmh, run with ./gradlew jmh
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -23,6 +25,14 @@ dependencies {
 
     compileOnly("org.projectlombok:lombok:1.18.34")
     annotationProcessor("org.projectlombok:lombok:1.18.34")
+
+    // The benchmarks run outside a server, so they need the API at runtime.
+    jmh("org.spigotmc:spigot-api:1.21-R0.1-SNAPSHOT")
+
+    testImplementation("org.spigotmc:spigot-api:1.21-R0.1-SNAPSHOT")
+    testImplementation(platform("org.junit:junit-bom:5.10.3"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 group = "com.itsschatten.libs"
@@ -53,6 +63,18 @@ publishing {
     }
 }
 
+jmh {
+    // Pick benchmarks with -Pjmh.includes=SimpleConfigPathBenchmark
+    includes.addAll(providers.gradleProperty("jmh.includes").map { listOf(it) }.orElse(emptyList()))
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
 }
@@ -0,0 +1,113 @@
+package com.itsschatten.libs.commandutils;
+
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing numbers and returning from commands with exceptions, as it used to work, with the non-throwing
+ * {@link CommandContext#parseInt(String)} and the stackless {@link ReturnedCommandException} used now,
+ * and measures a {@link CommandTree} dispatch that runs and one that fails.
+ * <p>
+ * The sender is a proxy that ignores every call, no server is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandDispatchBenchmark {
+
+    private static final String[] MATCHING = {"give", "Notch", "250"};
+    private static final String[] FAILING = {"give", "Notch", "lots"};
+
+    private CommandSender sender;
+    private CommandTree tree;
+    private int given;
+
+    // Fields, so the JIT can't fold the inputs.
+    private String number = "12345";
+    private String notNumber = "12a45";
+
+    @Setup
+    public void setup() {
+        sender = (CommandSender) Proxy.newProxyInstance(CommandSender.class.getClassLoader(), new Class<?>[]{CommandSender.class},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? false : null);
+
+        tree = CommandTree.builder()
+                .usage("&cUsage: /eco give <player> <amount>")
+                .literal("give", give -> give
+                        .argument("target", ArgumentTypes.word(), target -> target
+                                .argument("amount", ArgumentTypes.integer(1, 10000), amount -> amount
+                                        .executes((context, args) -> given += args.getInt("amount")))))
+                .build();
+    }
+
+    @Benchmark
+    public int parseValidWithException() {
+        try {
+            return Integer.parseInt(number);
+        } catch (final NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public long parseValidWithoutException() {
+        return CommandContext.parseInt(number);
+    }
+
+    @Benchmark
+    public int parseInvalidWithException() {
+        try {
+            return Integer.parseInt(notNumber);
+        } catch (final NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public long parseInvalidWithoutException() {
+        return CommandContext.parseInt(notNumber);
+    }
+
+    @Benchmark
+    public Object returnWithStackTrace() {
+        try {
+            throw new RuntimeException(notNumber);
+        } catch (final RuntimeException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public Object returnStackless() {
+        try {
+            throw new ReturnedCommandException(notNumber, false);
+        } catch (final ReturnedCommandException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public int dispatchMatching() {
+        tree.dispatch(new CommandContext(sender, "eco", MATCHING, ""));
+        return given;
+    }
+
+    @Benchmark
+    public Object dispatchFailing() {
+        try {
+            tree.dispatch(new CommandContext(sender, "eco", FAILING, ""));
+            return null;
+        } catch (final ReturnedCommandException ex) {
+            return ex;
+        }
+    }
+}
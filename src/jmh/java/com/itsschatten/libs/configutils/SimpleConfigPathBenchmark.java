@@ -0,0 +1,155 @@
+package com.itsschatten.libs.configutils;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving the path prefix of {@link SimpleConfig} by walking the stack, as it used to, with the re-entrancy counter it uses now.
+ * <p>
+ * SimpleConfig needs a running plugin to be created, so both resolvers are copied onto a plain {@link YamlConfiguration}
+ * with a path prefix and without defaults, the case where the prefix is applied.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimpleConfigPathBenchmark {
+
+    private StackWalkConfig stackWalk;
+    private DepthCounterConfig depthCounter;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        stackWalk = new StackWalkConfig();
+        depthCounter = new DepthCounterConfig();
+
+        for (int i = 0; i < 32; i++) {
+            stackWalk.set("stats.kills." + i, i);
+            depthCounter.set("stats.kills." + i, i);
+        }
+
+        stackWalk.set("name", "Notch");
+        depthCounter.set("name", "Notch");
+    }
+
+    @Benchmark
+    public Object getStackWalk() {
+        return stackWalk.getString("name");
+    }
+
+    @Benchmark
+    public Object getDepthCounter() {
+        return depthCounter.getString("name");
+    }
+
+    @Benchmark
+    public Object getNestedStackWalk() {
+        return stackWalk.getInt("stats.kills.17");
+    }
+
+    @Benchmark
+    public Object getNestedDepthCounter() {
+        return depthCounter.getInt("stats.kills.17");
+    }
+
+    @Benchmark
+    public void setStackWalk() {
+        stackWalk.set("stats.deaths", counter++);
+    }
+
+    @Benchmark
+    public void setDepthCounter() {
+        depthCounter.set("stats.deaths", counter++);
+    }
+
+    // The resolver SimpleConfig had before, the caller's method name decides if the prefix is applied.
+    private static final class StackWalkConfig extends YamlConfiguration {
+        private final String pathPrefix = "players.069a79f4-44e9-4726-a5be-fca90e38aaf5";
+
+        @Override
+        public Object get(@NotNull String path, Object def) {
+            final String m = new Throwable().getStackTrace()[1].getMethodName();
+
+            if (pathPrefix != null && !m.equals("getConfigurationSection") && !m.equals("get"))
+                path = pathPrefix + "." + path;
+
+            return super.get(path, null);
+        }
+
+        @Override
+        public void set(@NotNull String path, Object value) {
+            final String m = new Throwable().getStackTrace()[1].getMethodName();
+
+            if (pathPrefix != null && !m.equals("getConfigurationSection") && !m.equals("get"))
+                path = pathPrefix + "." + path;
+
+            super.set(path, value);
+        }
+    }
+
+    // The resolver SimpleConfig has now, only the outermost call on the thread gets the prefix.
+    private static final class DepthCounterConfig extends YamlConfiguration {
+        private final String pathPrefix = "players.069a79f4-44e9-4726-a5be-fca90e38aaf5";
+        private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+        @Override
+        public Object get(@NotNull String path, Object def) {
+            final int[] d = depth.get();
+            final String resolved = d[0] == 0 ? pathPrefix + "." + path : path;
+
+            d[0]++;
+            try {
+                return super.get(resolved, null);
+            } finally {
+                d[0]--;
+            }
+        }
+
+        @Override
+        public Object get(@NotNull String path) {
+            final int[] d = depth.get();
+
+            d[0]++;
+            try {
+                return super.get(path);
+            } finally {
+                d[0]--;
+            }
+        }
+
+        @Override
+        public ConfigurationSection getConfigurationSection(@NotNull String path) {
+            final int[] d = depth.get();
+
+            d[0]++;
+            try {
+                return super.getConfigurationSection(path);
+            } finally {
+                d[0]--;
+            }
+        }
+
+        @Override
+        public void set(@NotNull String path, Object value) {
+            final int[] d = depth.get();
+            final String resolved = d[0] == 0 ? pathPrefix + "." + path : path;
+
+            d[0]++;
+            try {
+                super.set(resolved, value);
+            } finally {
+                d[0]--;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.itsschatten.libs;
+
+import lombok.Getter;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Colors messages in a single pass over their characters, and remembers the result for messages it has seen before.
+ * <p>
+ * The output is exactly the same as {@link net.md_5.bungee.api.ChatColor#translateAlternateColorCodes(char, String)} with '&amp;'
+ * followed by replacing every {@code <#rrggbb>} with its {@link net.md_5.bungee.api.ChatColor#of(String) hex color}.
+ *
+ * @see Utils#colorize(String)
+ */
+@UtilityClass
+public class Colorizer {
+
+    /**
+     * Every character that may follow '&amp;' to form a color code.
+     */
+    private static final String ALL_CODES = "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx";
+
+    private static final char COLOR_CHAR = '§';
+
+    /**
+     * Colored messages, by the message they were made from.
+     */
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * The most messages to remember, when full an arbitrary message is forgotten for every new one.
+     * -- GETTER --
+     * Gets the most messages that are remembered.
+     *
+     * @return The maximum size of the cache.
+     */
+    @Getter
+    private static volatile int maxCacheSize = 1024;
+
+    /**
+     * Colors a message, using the cached result if this message was colored before.
+     *
+     * @param message The message to color.
+     * @return The colored message.
+     */
+    public static @NotNull String colorize(final @NotNull String message) {
+        final String cached = CACHE.get(message);
+        if (cached != null) {
+            HITS.increment();
+            return cached;
+        }
+
+        MISSES.increment();
+        final String colored = translate(message);
+
+        if (maxCacheSize > 0) {
+            if (CACHE.size() >= maxCacheSize) {
+                final Iterator<String> iterator = CACHE.keySet().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+
+            CACHE.put(message, colored);
+        }
+
+        return colored;
+    }
+
+    /**
+     * Colors a message without looking at or filling the cache, useful for messages that are only ever sent once.
+     *
+     * @param message The message to color.
+     * @return The colored message.
+     */
+    public static @NotNull String translate(final @NotNull String message) {
+        final int length = message.length();
+        StringBuilder builder = null;
+        int copied = 0;
+
+        for (int i = 0; i < length; i++) {
+            final char c = message.charAt(i);
+
+            if (c == '&' && i + 1 < length && ALL_CODES.indexOf(message.charAt(i + 1)) > -1) {
+                if (builder == null) builder = new StringBuilder(length + 16);
+
+                builder.append(message, copied, i).append(COLOR_CHAR).append(Character.toLowerCase(message.charAt(i + 1)));
+                copied = i + 2;
+                i++;
+            } else if (c == '<' && isHexTag(message, i)) {
+                if (builder == null) builder = new StringBuilder(length + 16);
+
+                builder.append(message, copied, i).append(COLOR_CHAR).append('x');
+                for (int j = i + 2; j < i + 8; j++)
+                    builder.append(COLOR_CHAR).append(message.charAt(j));
+
+                copied = i + 9;
+                i += 8;
+            }
+        }
+
+        if (builder == null)
+            return message;
+
+        return builder.append(message, copied, length).toString();
+    }
+
+    /**
+     * Sets the most messages that are remembered, 0 disables the cache. Clears the cache.
+     *
+     * @param maxCacheSize The maximum size of the cache.
+     */
+    public static void setMaxCacheSize(int maxCacheSize) {
+        Colorizer.maxCacheSize = Math.max(0, maxCacheSize);
+        CACHE.clear();
+    }
+
+    /**
+     * Forgets every cached message and resets the statistics.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    /**
+     * @return The amount of messages currently cached.
+     */
+    public static int getCacheSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * @return How many times a cached message was used.
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return How many times a message had to be colored.
+     */
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+
+    /**
+     * @return The share of lookups that used the cache, between 0 and 1.
+     */
+    public static double getHitRate() {
+        final long hits = HITS.sum();
+        final long total = hits + MISSES.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // Checks for <#xxxxxx> at this index, the same way the old <#(\w{6})> pattern did.
+    // Word characters that are not hex digits are rejected the same way ChatColor.of did.
+    private static boolean isHexTag(final @NotNull String message, final int start) {
+        if (start + 8 >= message.length() || message.charAt(start + 1) != '#' || message.charAt(start + 8) != '>')
+            return false;
+
+        for (int i = start + 2; i < start + 8; i++)
+            if (!isWordChar(message.charAt(i)))
+                return false;
+
+        for (int i = start + 2; i < start + 8; i++)
+            if (Character.digit(message.charAt(i), 16) == -1)
+                throw new IllegalArgumentException("Illegal hex string " + message.substring(start + 1, start + 8));
+
+        return true;
+    }
+
+    private static boolean isWordChar(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
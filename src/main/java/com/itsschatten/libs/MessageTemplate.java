@@ -0,0 +1,189 @@
+package com.itsschatten.libs;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A message that is parsed and colored once, then rendered with values for its placeholders.
+ * <p>
+ * Placeholders are written as {@code {name}}. The text between them is colored when the template is created,
+ * rendering only has to color the values (which uses the {@link Colorizer} cache) and join everything together.
+ * {@code {prefix}} is always filled with {@link Utils#getPrefix()} unless another value is given, unknown placeholders are left as they are.
+ * <p>
+ * Since every part is colored on its own, a color code can't be split by a placeholder, for example {@code &{color}}.
+ */
+public final class MessageTemplate {
+
+    /**
+     * The message this template was created from.
+     * -- GETTER --
+     * Gets the message this template was created from.
+     *
+     * @return The uncolored message.
+     */
+    @Getter
+    private final String source;
+
+    /**
+     * The colored text around the placeholders, always one more than there are placeholders.
+     */
+    private final String[] literals;
+
+    /**
+     * The names of the placeholders, in order.
+     */
+    private final String[] slots;
+
+    /**
+     * The length of all literals combined, to size the builder when rendering.
+     */
+    private final int literalLength;
+
+    private MessageTemplate(final String source, final String[] literals, final String[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+
+        int length = 0;
+        for (final String literal : literals)
+            length += literal.length();
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses and colors a message.
+     *
+     * @param message The message.
+     * @return A new template.
+     */
+    @Contract("_ -> new")
+    public static @NotNull MessageTemplate of(@NotNull String message) {
+        final List<String> literals = new ArrayList<>();
+        final List<String> slots = new ArrayList<>();
+        int literalStart = 0;
+
+        for (int i = 0; i < message.length(); i++) {
+            if (message.charAt(i) != '{')
+                continue;
+
+            final int end = findPlaceholderEnd(message, i);
+            if (end == -1)
+                continue;
+
+            literals.add(Colorizer.translate(message.substring(literalStart, i)));
+            slots.add(message.substring(i + 1, end));
+            literalStart = end + 1;
+            i = end;
+        }
+
+        literals.add(Colorizer.translate(message.substring(literalStart)));
+        return new MessageTemplate(message, literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    /**
+     * Checks if the rendered message would be empty.
+     *
+     * @return True if there is nothing to render.
+     */
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    /**
+     * Renders the template, only filling in {@code {prefix}}.
+     *
+     * @return The colored message.
+     */
+    public @NotNull String render() {
+        return render(name -> null);
+    }
+
+    /**
+     * Renders the template with one placeholder value.
+     *
+     * @param name  The name of the placeholder.
+     * @param value The value.
+     * @return The colored message.
+     */
+    public @NotNull String render(@NotNull String name, @Nullable Object value) {
+        return render(slot -> slot.equals(name) ? value : null);
+    }
+
+    /**
+     * Renders the template with two placeholder values.
+     *
+     * @param name   The name of the first placeholder.
+     * @param value  The first value.
+     * @param name2  The name of the second placeholder.
+     * @param value2 The second value.
+     * @return The colored message.
+     */
+    public @NotNull String render(@NotNull String name, @Nullable Object value, @NotNull String name2, @Nullable Object value2) {
+        return render(slot -> slot.equals(name) ? value : slot.equals(name2) ? value2 : null);
+    }
+
+    /**
+     * Renders the template with placeholder values from a map.
+     *
+     * @param values The values, by placeholder name.
+     * @return The colored message.
+     */
+    public @NotNull String render(@NotNull Map<String, ?> values) {
+        return render(values::get);
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param resolver Gets the value of a placeholder by its name, or null if it's unknown.
+     * @return The colored message.
+     */
+    public @NotNull String render(@NotNull Function<String, ?> resolver) {
+        if (slots.length == 0)
+            return literals[0];
+
+        final StringBuilder builder = new StringBuilder(literalLength + slots.length * 16);
+
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+
+            Object value = resolver.apply(slots[i]);
+            if (value == null && slots[i].equals("prefix"))
+                value = Utils.getPrefix();
+
+            if (value == null)
+                builder.append('{').append(slots[i]).append('}');
+            else
+                builder.append(Colorizer.colorize(value.toString()));
+        }
+
+        return builder.append(literals[slots.length]).toString();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    // Finds the closing brace of a placeholder starting at this index, or -1 if this isn't a placeholder.
+    private static int findPlaceholderEnd(final @NotNull String message, final int start) {
+        for (int i = start + 1; i < message.length(); i++) {
+            final char c = message.charAt(i);
+
+            if (c == '}')
+                return i == start + 1 ? -1 : i;
+
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.')
+                return -1;
+        }
+
+        return -1;
+    }
+}
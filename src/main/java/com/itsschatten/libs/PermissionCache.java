@@ -0,0 +1,190 @@
+package com.itsschatten.libs;
+
+import com.itsschatten.libs.interfaces.IPermissions;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.permissions.Permissible;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the result of permission checks of players for a short time, so permission plugins with deep group
+ * inheritance aren't asked the same question over and over.
+ * <p>
+ * The cache is off until {@link #register(JavaPlugin) registered}, until then every check goes to the player.
+ * Results are forgotten after the {@link #setTtl(Duration) TTL}, when the player changes worlds or quits, and when
+ * {@link #invalidate(UUID)} is called. Bukkit has no event for permission changes, so hook {@link #invalidate(UUID)}
+ * into your permission plugin's events if changes must apply right away.
+ * <p>
+ * Only players are cached, the console and other senders are always asked directly.
+ */
+public final class PermissionCache implements Listener {
+
+    /**
+     * The cached results of each player, every value is the expiry time with the result in its lowest bit.
+     */
+    private static final Map<UUID, Map<PermissionNode, Long>> CACHE = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * How long a result is remembered.
+     * -- GETTER --
+     * Gets how long a result is remembered.
+     *
+     * @return The TTL.
+     */
+    @Getter
+    private static volatile Duration ttl = Duration.ofSeconds(10);
+
+    private static volatile long ttlNanos = ttl.toNanos();
+
+    /**
+     * If the cache is on.
+     * -- GETTER --
+     * Checks if the cache is on.
+     *
+     * @return True once registered.
+     */
+    @Getter
+    private static volatile boolean enabled;
+
+    private PermissionCache() {
+    }
+
+    /**
+     * Registers the listeners that clear results and turns the cache on. Does nothing if already registered.
+     *
+     * @param plugin The plugin to register the listeners for.
+     */
+    public static void register(@NotNull JavaPlugin plugin) {
+        if (enabled)
+            return;
+
+        Bukkit.getPluginManager().registerEvents(new PermissionCache(), plugin);
+        enabled = true;
+    }
+
+    /**
+     * Sets how long a result is remembered, already cached results keep their old expiry.
+     *
+     * @param ttl The TTL.
+     */
+    public static void setTtl(@NotNull Duration ttl) {
+        PermissionCache.ttl = ttl;
+        PermissionCache.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Checks if someone has a permission.
+     *
+     * @param permissible Who to check.
+     * @param permission  The permission.
+     * @return True if they have it.
+     */
+    public static boolean has(@NotNull Permissible permissible, @NotNull IPermissions permission) {
+        return has(permissible, permission.getNode());
+    }
+
+    /**
+     * Checks if someone has a permission.
+     *
+     * @param permissible Who to check.
+     * @param node        The permission.
+     * @return True if they have it.
+     */
+    public static boolean has(@NotNull Permissible permissible, @NotNull PermissionNode node) {
+        if (!enabled || !(permissible instanceof Player player) || !player.isOnline())
+            return permissible.hasPermission(node.getPermission());
+
+        final long now = System.nanoTime();
+        final Map<PermissionNode, Long> results = CACHE.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>());
+        final Long cached = results.get(node);
+
+        if (cached != null && (cached & ~1L) - now > 0) {
+            HITS.increment();
+            return (cached & 1L) == 1L;
+        }
+
+        MISSES.increment();
+        final boolean result = player.hasPermission(node.getPermission());
+        results.put(node, ((now + ttlNanos) & ~1L) | (result ? 1L : 0L));
+        return result;
+    }
+
+    /**
+     * Forgets every result of a player.
+     *
+     * @param uuid The UUID of the player.
+     */
+    public static void invalidate(@NotNull UUID uuid) {
+        CACHE.remove(uuid);
+    }
+
+    /**
+     * Forgets one result of a player.
+     *
+     * @param uuid The UUID of the player.
+     * @param node The permission.
+     */
+    public static void invalidate(@NotNull UUID uuid, @NotNull PermissionNode node) {
+        final Map<PermissionNode, Long> results = CACHE.get(uuid);
+        if (results != null)
+            results.remove(node);
+    }
+
+    /**
+     * Forgets every result and resets the statistics.
+     */
+    public static void invalidateAll() {
+        CACHE.clear();
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    /**
+     * @return How many times a cached result was used.
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return How many times a player had to be asked.
+     */
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+
+    /**
+     * @return The share of checks that used a cached result, between 0 and 1.
+     */
+    public static double getHitRate() {
+        final long hits = HITS.sum();
+        final long total = hits + MISSES.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(final @NotNull PlayerChangedWorldEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(final @NotNull PlayerQuitEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,67 @@
+package com.itsschatten.libs;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A permission string that is only ever created once, so it can be compared by identity and used as a cheap map key.
+ *
+ * @see com.itsschatten.libs.interfaces.IPermissions#getNode()
+ * @see PermissionCache
+ */
+public final class PermissionNode {
+
+    private static final Map<String, PermissionNode> NODES = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    /**
+     * The permission.
+     */
+    @Getter
+    private final String permission;
+
+    /**
+     * A number unique to this node, nodes are numbered in the order they were created.
+     */
+    @Getter
+    private final int id;
+
+    private final int hash;
+
+    private PermissionNode(final @NotNull String permission) {
+        this.permission = permission;
+        this.id = NEXT_ID.getAndIncrement();
+        this.hash = permission.hashCode();
+    }
+
+    /**
+     * Gets the node of a permission, creating it the first time.
+     *
+     * @param permission The permission.
+     * @return The node, always the same instance for the same permission.
+     */
+    public static @NotNull PermissionNode of(@NotNull String permission) {
+        final PermissionNode node = NODES.get(permission);
+        return node != null ? node : NODES.computeIfAbsent(permission, PermissionNode::new);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return permission;
+    }
+}
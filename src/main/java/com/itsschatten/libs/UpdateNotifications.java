@@ -50,6 +50,10 @@ public abstract class UpdateNotifications extends BukkitRunnable {
         return Utils.getUpdateAvailableMessage();
     }
 
+    public final MessageTemplate getUpdateTemplate() {
+        return Utils.getUpdateAvailableTemplate();
+    }
+
     @Override
     public void run() {
         try {
@@ -1,20 +1,24 @@
 package com.itsschatten.libs;
 
+import com.itsschatten.libs.commandutils.CommandRegistry;
+import com.itsschatten.libs.interfaces.IPermissions;
+import com.itsschatten.libs.inventories.ItemCodec;
+import com.itsschatten.libs.logutils.AsyncLogSink;
+import com.itsschatten.libs.logutils.ErrorDeduplicator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.UtilityClass;
-import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
 import org.bukkit.command.Command;
-import org.bukkit.command.CommandMap;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.io.BukkitObjectInputStream;
 import org.bukkit.util.io.BukkitObjectOutputStream;
 import org.jetbrains.annotations.Contract;
@@ -26,11 +30,17 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The utility class.
@@ -38,7 +48,6 @@ import java.util.regex.Pattern;
 @UtilityClass
 public class Utils {
 
-    private static final Pattern HEX_PATTERN = Pattern.compile("<#(\\w{6})>");
     private static final String[] VERSION = Bukkit.getServer().getBukkitVersion().split("-")[0].split("\\.");
 
     /**
@@ -56,17 +65,112 @@ public class Utils {
     private static JavaPlugin instance;
 
     @Getter(AccessLevel.PUBLIC)
-    @Setter(AccessLevel.PUBLIC)
     private static String noPermsMessage;
 
+    /**
+     * The compiled {@link #noPermsMessage}, with the {prefix} and {permission} placeholders.
+     */
+    @Getter(AccessLevel.PUBLIC)
+    private static MessageTemplate noPermsTemplate;
+
     @Getter(AccessLevel.PUBLIC)
-    @Setter(AccessLevel.PUBLIC)
     private static String updateAvailableMessage = "";
 
+    /**
+     * The compiled {@link #updateAvailableMessage}.
+     */
+    @Getter(AccessLevel.PUBLIC)
+    private static MessageTemplate updateAvailableTemplate = MessageTemplate.of("");
+
     @Setter(AccessLevel.PUBLIC)
     @Getter(AccessLevel.PUBLIC)
     private static boolean debugMode;
 
+    /**
+     * Debug categories that are logged even when {@link #debugMode} is off.
+     */
+    private static final Set<String> DEBUG_CATEGORIES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * When set, log messages are queued to this sink and written by its thread instead of the calling thread.
+     * -- GETTER --
+     * Gets the sink log messages are queued to.
+     *
+     * @return The sink, or null if messages are logged on the calling thread.
+     */
+    @Getter(AccessLevel.PUBLIC)
+    private static AsyncLogSink logSink;
+
+    /**
+     * When set, {@link #logError(Throwable)} only logs the first of many identical errors and summarizes the rest.
+     */
+    @Setter(AccessLevel.PUBLIC)
+    @Getter(AccessLevel.PUBLIC)
+    private static ErrorDeduplicator errorDeduplicator;
+
+    /**
+     * How many recipients a broadcast sends to per tick, bigger broadcasts are spread over the following ticks.
+     */
+    @Setter(AccessLevel.PUBLIC)
+    @Getter(AccessLevel.PUBLIC)
+    private static int broadcastBatchSize = 250;
+
+    /**
+     * Sets the message sent when someone lacks a permission, it's compiled into a {@link MessageTemplate} right away.
+     *
+     * @param noPermsMessage The message, {prefix} and {permission} are filled in when it's sent.
+     */
+    public static void setNoPermsMessage(String noPermsMessage) {
+        Utils.noPermsMessage = noPermsMessage;
+        Utils.noPermsTemplate = noPermsMessage == null ? null : MessageTemplate.of(noPermsMessage);
+    }
+
+    /**
+     * Sets the message sent when someone lacks a permission.
+     *
+     * @param noPermsTemplate The template, {prefix} and {permission} are filled in when it's sent.
+     */
+    public static void setNoPermsTemplate(@NotNull MessageTemplate noPermsTemplate) {
+        Utils.noPermsMessage = noPermsTemplate.getSource();
+        Utils.noPermsTemplate = noPermsTemplate;
+    }
+
+    /**
+     * Sets the message sent when an update is available, it's compiled into a {@link MessageTemplate} right away.
+     *
+     * @param updateAvailableMessage The message.
+     */
+    public static void setUpdateAvailableMessage(@NotNull String updateAvailableMessage) {
+        Utils.updateAvailableMessage = updateAvailableMessage;
+        Utils.updateAvailableTemplate = MessageTemplate.of(updateAvailableMessage);
+    }
+
+    /**
+     * Sets the message sent when an update is available.
+     *
+     * @param updateAvailableTemplate The template.
+     */
+    public static void setUpdateAvailableTemplate(@NotNull MessageTemplate updateAvailableTemplate) {
+        Utils.updateAvailableMessage = updateAvailableTemplate.getSource();
+        Utils.updateAvailableTemplate = updateAvailableTemplate;
+    }
+
+    /**
+     * Sets the sink log messages are queued to, the previous sink is shut down after anything it still has is written.
+     * <p>
+     * While a sink is set, a message logged with extra lines and the lines of {@link #logError(Throwable)} are sent as a single record.
+     * Set this back to null in your plugin's onDisable.
+     *
+     * @param logSink The sink, or null to log on the calling thread.
+     */
+    public static void setLogSink(@Nullable AsyncLogSink logSink) {
+        final AsyncLogSink previous = Utils.logSink;
+        Utils.logSink = logSink;
+
+        if (previous != null && previous != logSink)
+            previous.shutdown(5000L);
+    }
+
     /**
      * Get a NamespacedKey associated with the instance supplied to this utility.
      *
@@ -149,6 +253,150 @@ public class Utils {
         }
     }
 
+    /**
+     * Sends a message to many people, the message is only colored once.
+     *
+     * @param recipients The people to send the message to.
+     * @param message    The message to send.
+     * @see #setBroadcastBatchSize(int)
+     */
+    public static void broadcast(@NotNull Collection<? extends CommandSender> recipients, @NotNull String message) {
+        broadcast(recipients, message, null);
+    }
+
+    /**
+     * Sends a message to everyone in a collection that has a permission, the message is only colored once.
+     *
+     * @param recipients The people to send the message to.
+     * @param message    The message to send.
+     * @param permission The permission someone needs to receive the message, or null to send it to everyone.
+     * @see #setBroadcastBatchSize(int)
+     */
+    public static void broadcast(@NotNull Collection<? extends CommandSender> recipients, @NotNull String message, @Nullable IPermissions permission) {
+        if (message.isEmpty())
+            return;
+
+        final String rendered = colorize(message.replace("{prefix}", getPrefix()));
+        fanOut(recipients, permission, recipient -> recipient.sendMessage(rendered));
+    }
+
+    /**
+     * Sends a message from a template to everyone in a collection that has a permission, the template is only rendered once.
+     *
+     * @param recipients The people to send the message to.
+     * @param template   The message to send.
+     * @param permission The permission someone needs to receive the message, or null to send it to everyone.
+     * @see #setBroadcastBatchSize(int)
+     */
+    public static void broadcast(@NotNull Collection<? extends CommandSender> recipients, @NotNull MessageTemplate template, @Nullable IPermissions permission) {
+        if (template.isEmpty())
+            return;
+
+        final String rendered = template.render();
+        fanOut(recipients, permission, recipient -> recipient.sendMessage(rendered));
+    }
+
+    /**
+     * Sends a title with a subtitle to many players, both are only colored once.
+     *
+     * @param players  The players to send the title to.
+     * @param title    The message for the title.
+     * @param subtitle The message for the subtitle.
+     * @see #setBroadcastBatchSize(int)
+     */
+    public static void broadcastTitle(@NotNull Collection<? extends Player> players, String title, String subtitle) {
+        broadcastTitle(players, title, subtitle, null);
+    }
+
+    /**
+     * Sends a title with a subtitle to every player in a collection that has a permission, both are only colored once.
+     *
+     * @param players    The players to send the title to.
+     * @param title      The message for the title.
+     * @param subtitle   The message for the subtitle.
+     * @param permission The permission a player needs to receive the title, or null to send it to everyone.
+     * @see #setBroadcastBatchSize(int)
+     */
+    public static void broadcastTitle(@NotNull Collection<? extends Player> players, String title, String subtitle, @Nullable IPermissions permission) {
+        final String coloredTitle = colorize(title);
+        final String coloredSubtitle = colorize(subtitle);
+
+        fanOut(players, permission, player -> player.sendTitle(coloredTitle, coloredSubtitle, 20, 3 * 20, 10));
+    }
+
+    /**
+     * Sends an actionbar to many players, the message is only colored once.
+     *
+     * @param players The players to send the bar to.
+     * @param title   The message for the bar.
+     * @see #setBroadcastBatchSize(int)
+     */
+    public static void broadcastBar(@NotNull Collection<? extends Player> players, String title) {
+        broadcastBar(players, title, null);
+    }
+
+    /**
+     * Sends an actionbar to every player in a collection that has a permission, the message is only colored once.
+     *
+     * @param players    The players to send the bar to.
+     * @param title      The message for the bar.
+     * @param permission The permission a player needs to receive the bar, or null to send it to everyone.
+     * @see #setBroadcastBatchSize(int)
+     */
+    public static void broadcastBar(@NotNull Collection<? extends Player> players, String title, @Nullable IPermissions permission) {
+        final String colored = colorize(title);
+        final TextComponent component = new TextComponent(colored);
+
+        fanOut(players, permission, player -> {
+            try {
+                player.spigot().sendMessage(ChatMessageType.ACTION_BAR, component);
+            } catch (final Throwable t) {
+                player.sendMessage(colored);
+            }
+        });
+    }
+
+    // Sends something to every recipient that has the permission, at most broadcastBatchSize now and the rest spread over the following ticks.
+    private static <T extends CommandSender> void fanOut(final @NotNull Collection<? extends T> recipients, final @Nullable IPermissions permission, final @NotNull Consumer<T> send) {
+        final PermissionNode node = permission == null ? null : permission.getNode();
+        final int batchSize = Math.max(1, broadcastBatchSize);
+
+        if (recipients.size() <= batchSize) {
+            for (final T recipient : recipients)
+                if (node == null || PermissionCache.has(recipient, node))
+                    send.accept(recipient);
+            return;
+        }
+
+        final List<T> queue = new ArrayList<>(recipients);
+        final BukkitRunnable batch = new BukkitRunnable() {
+            private int index;
+
+            @Override
+            public void run() {
+                final int end = Math.min(index + batchSize, queue.size());
+
+                for (; index < end; index++) {
+                    final T recipient = queue.get(index);
+
+                    // They may have left since the broadcast started.
+                    if (recipient instanceof Player player && !player.isOnline())
+                        continue;
+
+                    if (node == null || PermissionCache.has(recipient, node))
+                        send.accept(recipient);
+                }
+
+                if (index >= queue.size())
+                    cancel();
+            }
+        };
+
+        // The first batch goes out right away, there is always more left for the timer.
+        batch.run();
+        batch.runTaskTimer(getInstance(), 1L, 1L);
+    }
+
     /**
      * Send multiple messages to someone.
      *
@@ -171,45 +419,67 @@ public class Utils {
             toWhom.sendMessage(colorize(message.replace("{prefix}", getPrefix())));
     }
 
+    /**
+     * Tell someone a message from a template, the template is already colored so only {prefix} is filled in.
+     *
+     * @param toWhom   The person to tell the message to.
+     * @param template The message to send.
+     */
+    public static void tell(CommandSender toWhom, @NotNull MessageTemplate template) {
+        if (!template.isEmpty())
+            toWhom.sendMessage(template.render());
+    }
+
+    /**
+     * Tell someone a message from a template.
+     *
+     * @param toWhom       The person to tell the message to.
+     * @param template     The message to send.
+     * @param placeholders The values of the placeholders in the template, by name.
+     */
+    public static void tell(CommandSender toWhom, @NotNull MessageTemplate template, @NotNull Map<String, ?> placeholders) {
+        if (!template.isEmpty())
+            toWhom.sendMessage(template.render(placeholders));
+    }
+
     /**
      * <p>Iterates through a message replacing any RGB (hex) color first.
      * <p>
      * Then uses ampersand and a number 0-9 or a letter a-f to color a message.
      * Use l, m, n, o to add modifiers to the message.
      * </p>
+     * <p>Results are cached, see {@link Colorizer} for the cache statistics.</p>
      *
      * @param message The message to colorize.
      * @return The colorized message.
      */
     public static String colorize(final @NotNull String message) {
-
-        if (message.contains("<#")) {
-            final Matcher hexMatch = HEX_PATTERN.matcher(net.md_5.bungee.api.ChatColor.translateAlternateColorCodes('&', message));
-            final StringBuilder buffer = new StringBuilder();
-
-            while (hexMatch.find()) {
-                hexMatch.appendReplacement(buffer, net.md_5.bungee.api.ChatColor.of("#" + hexMatch.group(1)).toString());
-            }
-
-            return hexMatch.appendTail(buffer).toString();
-        }
-
-        return ChatColor.translateAlternateColorCodes('&', message);
+        return Colorizer.colorize(message);
     }
 
     /**
      * Registers a command for a plugin, doesn't use the plugin.yml.
      *
      * @param command The command to register.
+     * @see CommandRegistry
      */
     public static void registerCommand(Command command) {
         try {
-            final Field commandMapField = Bukkit.getServer().getClass().getDeclaredField("commandMap");
-            commandMapField.setAccessible(true);
-
-            final CommandMap commandMap = (CommandMap) commandMapField.get(Bukkit.getServer());
-            commandMap.register(instance.getName(), command);
+            CommandRegistry.registerCommand(command);
+        } catch (final Exception e) {
+            logError(e);
+        }
+    }
 
+    /**
+     * Registers multiple commands for a plugin at once, doesn't use the plugin.yml.
+     *
+     * @param commands The commands to register.
+     * @see CommandRegistry
+     */
+    public static void registerCommands(Collection<? extends Command> commands) {
+        try {
+            CommandRegistry.registerCommands(commands);
         } catch (final Exception e) {
             logError(e);
         }
@@ -241,17 +511,7 @@ public class Utils {
      * @param messages An array of messages that are then iterated through and sent to the console.
      */
     public static void log(@NotNull final String message, final String... messages) {
-        if (instance == null) {
-            throw new NullPointerException("Cannot log messages with a null plugin instance.");
-        }
-
-        getLogger().info(message);
-
-        if (!message.isEmpty())
-            for (final String msg : messages)
-                getLogger().info(msg);
-
-
+        write(Level.INFO, "", message, messages);
     }
 
     /**
@@ -265,13 +525,105 @@ public class Utils {
             throw new NullPointerException("Cannot log messages with a null plugin instance.");
         }
 
-        if (isDebugMode()) {
-            getLogger().info("[DEBUG] " + message);
+        if (isDebugMode())
+            write(Level.INFO, "[DEBUG] ", message, messages);
+    }
+
+    /**
+     * Sends a message to the console with the INFO level and an added [DEBUG], the message is only built when debug mode is on.
+     *
+     * @param message Builds the message.
+     */
+    public static void debugLog(@NotNull final Supplier<String> message) {
+        if (isDebugMode())
+            write(Level.INFO, "[DEBUG] ", message.get(), new String[0]);
+    }
+
+    /**
+     * Sends a message to the console with the INFO level and an added [DEBUG/category],
+     * the message is only built when debug mode or the category is on.
+     *
+     * @param category The category of the message.
+     * @param message  Builds the message.
+     * @see #setDebugCategory(String, boolean)
+     */
+    public static void debugLog(@NotNull final String category, @NotNull final Supplier<String> message) {
+        if (isDebugEnabled(category))
+            write(Level.INFO, "[DEBUG/" + category + "] ", message.get(), new String[0]);
+    }
 
-            if (!message.isEmpty())
-                for (final String msg : messages)
-                    getLogger().info("[DEBUG] " + msg);
+    /**
+     * Sends a message to the console with the INFO level and an added [DEBUG], the first {} is replaced with the argument.
+     * Nothing is formatted when debug mode is off.
+     *
+     * @param pattern The message, with a {} for the argument.
+     * @param arg     The argument.
+     */
+    public static void debugLogFormat(@NotNull final String pattern, final Object arg) {
+        if (isDebugMode())
+            write(Level.INFO, "[DEBUG] ", format(pattern, arg), new String[0]);
+    }
+
+    /**
+     * Sends a message to the console with the INFO level and an added [DEBUG], the first two {} are replaced with the arguments.
+     * Nothing is formatted when debug mode is off.
+     *
+     * @param pattern The message, with a {} for each argument.
+     * @param arg     The first argument.
+     * @param arg2    The second argument.
+     */
+    public static void debugLogFormat(@NotNull final String pattern, final Object arg, final Object arg2) {
+        if (isDebugMode())
+            write(Level.INFO, "[DEBUG] ", format(pattern, arg, arg2), new String[0]);
+    }
+
+    /**
+     * Sends a message to the console with the INFO level and an added [DEBUG], every {} is replaced with the next argument.
+     * Nothing is formatted when debug mode is off, but the array of arguments is still created.
+     *
+     * @param pattern The message, with a {} for each argument.
+     * @param args    The arguments.
+     */
+    public static void debugLogFormat(@NotNull final String pattern, final Object... args) {
+        if (isDebugMode())
+            write(Level.INFO, "[DEBUG] ", format(pattern, args), new String[0]);
+    }
+
+    /**
+     * Turns a debug category on or off, categories that are on are logged even when debug mode is off.
+     *
+     * @param category The category.
+     * @param enabled  If it should be logged.
+     */
+    public static void setDebugCategory(@NotNull String category, boolean enabled) {
+        if (enabled)
+            DEBUG_CATEGORIES.add(category);
+        else
+            DEBUG_CATEGORIES.remove(category);
+    }
+
+    /**
+     * Checks if debug messages of a category are logged.
+     *
+     * @param category The category.
+     * @return True if debug mode or the category is on.
+     */
+    public static boolean isDebugEnabled(@NotNull String category) {
+        return isDebugMode() || (!DEBUG_CATEGORIES.isEmpty() && DEBUG_CATEGORIES.contains(category));
+    }
+
+    // Replaces every {} in the pattern with the next argument, placeholders without an argument are kept.
+    private static @NotNull String format(final @NotNull String pattern, final Object... args) {
+        final StringBuilder builder = new StringBuilder(pattern.length() + args.length * 16);
+        int copied = 0;
+        int arg = 0;
+
+        for (int i = pattern.indexOf("{}"); i != -1 && arg < args.length; i = pattern.indexOf("{}", copied)) {
+            builder.append(pattern, copied, i).append(args[arg++]);
+            copied = i + 2;
         }
+
+        return builder.append(pattern, copied, pattern.length()).toString();
     }
 
     /**
@@ -281,15 +633,7 @@ public class Utils {
      * @param messages An array of messages that are then iterated through and sent to the console.
      */
     public static void logWarning(@NotNull String message, String... messages) {
-        if (instance == null) {
-            throw new NullPointerException("Cannot log messages with a null plugin instance.");
-        }
-
-        getLogger().warning(message);
-
-        if (!message.isEmpty())
-            for (final String msg : messages)
-                getLogger().warning(msg);
+        write(Level.WARNING, "", message, messages);
     }
 
     /**
@@ -299,33 +643,63 @@ public class Utils {
      * @param messages An array of messages that are then iterated through and sent to the console.
      */
     public static void logError(@NotNull String message, String... messages) {
-        if (instance == null) {
-            throw new NullPointerException("Cannot log messages with a null plugin instance.");
-        }
-
-        getLogger().severe(message);
-
-        if (!message.isEmpty())
-            for (final String msg : messages)
-                getLogger().severe(msg);
+        write(Level.SEVERE, "", message, messages);
     }
 
     /**
      * Quickly log a {@link Throwable} error to console.
+     * If an {@link #setErrorDeduplicator(ErrorDeduplicator) error deduplicator} is set, repeats of the same error are suppressed.
      *
      * @param error The error we wish to send to console.
      */
     public static void logError(@NotNull Throwable error) {
-        logError("---------------- [ ERROR LOG START ] ----------------");
-        logError("ERROR TYPE: " + error);
-        logError("CAUSE: " + (error.getCause() == null ? "N/A" : error.getCause().getMessage()));
-        logError("MESSAGE: " + (error.getMessage() == null ? "" : error.getMessage()));
-        for (final StackTraceElement elm : error.getStackTrace()) {
-            logError(elm.toString());
-        }
-        logError("----------------- [ ERROR LOG END ] -----------------");
+        final ErrorDeduplicator deduplicator = errorDeduplicator;
+        if (deduplicator != null && !deduplicator.shouldLog(error))
+            return;
+
+        final StackTraceElement[] trace = error.getStackTrace();
+        final String[] lines = new String[trace.length + 4];
+
+        lines[0] = "ERROR TYPE: " + error;
+        lines[1] = "CAUSE: " + (error.getCause() == null ? "N/A" : error.getCause().getMessage());
+        lines[2] = "MESSAGE: " + (error.getMessage() == null ? "" : error.getMessage());
+        for (int i = 0; i < trace.length; i++)
+            lines[i + 3] = trace[i].toString();
+        lines[lines.length - 1] = "----------------- [ ERROR LOG END ] -----------------";
+
+        write(Level.SEVERE, "", "---------------- [ ERROR LOG START ] ----------------", lines);
     }
 
+    // Logs a message and its extra lines, as one record when there is a log sink, every line is prefixed.
+    private static void write(final @NotNull Level level, final @NotNull String linePrefix, final @NotNull String message, final String @NotNull [] messages) {
+        if (instance == null) {
+            throw new NullPointerException("Cannot log messages with a null plugin instance.");
+        }
+
+        final AsyncLogSink sink = logSink;
+
+        // Extra lines are only logged when the first one isn't empty.
+        if (message.isEmpty() || messages.length == 0) {
+            if (sink == null)
+                getLogger().log(level, linePrefix + message);
+            else
+                sink.log(level, linePrefix + message);
+            return;
+        }
+
+        if (sink == null) {
+            getLogger().log(level, linePrefix + message);
+            for (final String msg : messages)
+                getLogger().log(level, linePrefix + msg);
+            return;
+        }
+
+        final StringBuilder builder = new StringBuilder(linePrefix).append(message);
+        for (final String msg : messages)
+            builder.append('\n').append(linePrefix).append(msg);
+
+        sink.log(level, builder.toString());
+    }
 
     /**
      * Serialize a single {@link ItemStack} into base64.
@@ -361,6 +735,7 @@ public class Utils {
      * @see #deserialize(String)
      * @see #deserializeArray(String)
      * @see #serialize(ItemStack)
+     * @see ItemCodec#encode(ItemStack[]) ItemCodec, a smaller and faster format
      */
     public static @Nullable String serializeArray(ItemStack[] item) {
         try {
@@ -402,6 +777,7 @@ public class Utils {
 
     /**
      * Deserialize a base64 encoded string to an {@link ItemStack} array.
+     * Data written by {@link ItemCodec} is recognized and decoded with it.
      *
      * @param data The data to use to deserialize.
      * @return A possible nullable ItemStack array.
@@ -410,6 +786,9 @@ public class Utils {
      * @see #serialize(ItemStack)
      */
     public static ItemStack @Nullable [] deserializeArray(String data) {
+        if (ItemCodec.isEncoded(data))
+            return ItemCodec.decode(data);
+
         try {
             final ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64Coder.decodeLines(data));
             final BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream);
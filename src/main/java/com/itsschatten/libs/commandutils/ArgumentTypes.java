@@ -0,0 +1,210 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.interfaces.IArgumentType;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The built-in {@link IArgumentType argument types} for {@link CommandTree command trees}.
+ */
+@UtilityClass
+public class ArgumentTypes {
+
+    private static final IArgumentType<String> WORD = (sender, input) -> input;
+
+    private static final IArgumentType<String> GREEDY = new IArgumentType<>() {
+        @Override
+        public @NotNull String parse(@NotNull CommandSender sender, @NotNull String input) {
+            return input;
+        }
+
+        @Override
+        public boolean isGreedy() {
+            return true;
+        }
+    };
+
+    private static final IArgumentType<Player> PLAYER = new IArgumentType<>() {
+        @Override
+        public @Nullable Player parse(@NotNull CommandSender sender, @NotNull String input) {
+            // Async commands parse on the executor, the player list is only safe to read on the main thread.
+            // Tab completion parses earlier arguments on every key, that must not wait for the next tick.
+            if (AsyncCommands.isCommandThread())
+                return AsyncCommands.callSync(() -> Bukkit.getPlayerExact(input));
+
+            return Bukkit.getPlayerExact(input);
+        }
+
+        @Override
+        public @NotNull List<String> complete(@NotNull CommandSender sender, @NotNull String input) {
+            final List<String> names = new ArrayList<>();
+
+            for (final Player player : Bukkit.getOnlinePlayers()) {
+                if (sender instanceof Player viewer && !viewer.canSee(player))
+                    continue;
+
+                if (player.getName().regionMatches(true, 0, input, 0, input.length()))
+                    names.add(player.getName());
+            }
+
+            return names;
+        }
+
+        @Override
+        public @NotNull String getErrorMessage(@NotNull String input) {
+            return "&cCould not find a player named '" + input + "'.";
+        }
+    };
+
+    /**
+     * @return A single word.
+     */
+    public static @NotNull IArgumentType<String> word() {
+        return WORD;
+    }
+
+    /**
+     * @return Every remaining argument joined by spaces, must be the last argument.
+     */
+    public static @NotNull IArgumentType<String> greedy() {
+        return GREEDY;
+    }
+
+    /**
+     * An online player, by their exact name. When an {@link UserCommand#setAsync(boolean) async} command runs the player is
+     * looked up on the main thread, which waits for the next tick. Tab completion looks it up right away.
+     *
+     * @return The type.
+     */
+    public static @NotNull IArgumentType<Player> player() {
+        return PLAYER;
+    }
+
+    /**
+     * A whole number within a range.
+     *
+     * @param min The minimum value.
+     * @param max The maximum value.
+     * @return The type.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull IArgumentType<Integer> integer(int min, int max) {
+        return new IArgumentType<>() {
+            @Override
+            public @Nullable Integer parse(@NotNull CommandSender sender, @NotNull String input) {
+                final long number = CommandContext.parseInt(input);
+                return number == CommandContext.NOT_A_NUMBER || number < min || number > max ? null : (int) number;
+            }
+
+            @Override
+            public @NotNull String getErrorMessage(@NotNull String input) {
+                return "&cPlease enter a whole number between " + min + " and " + max + ".";
+            }
+        };
+    }
+
+    /**
+     * A whole number.
+     *
+     * @return The type.
+     */
+    public static @NotNull IArgumentType<Integer> integer() {
+        return integer(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A decimal number within a range.
+     *
+     * @param min The minimum value.
+     * @param max The maximum value.
+     * @return The type.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull IArgumentType<Double> decimal(double min, double max) {
+        return new IArgumentType<>() {
+            @Override
+            public @Nullable Double parse(@NotNull CommandSender sender, @NotNull String input) {
+                if (!looksLikeDecimal(input))
+                    return null;
+
+                try {
+                    final double number = Double.parseDouble(input);
+                    return number < min || number > max ? null : number;
+                } catch (final NumberFormatException ex) {
+                    return null;
+                }
+            }
+
+            @Override
+            public @NotNull String getErrorMessage(@NotNull String input) {
+                return "&cPlease enter a number between " + min + " and " + max + ".";
+            }
+        };
+    }
+
+    /**
+     * One of the constants of an enum, by name and ignoring case.
+     *
+     * @param type The enum.
+     * @param <E>  The type of the enum.
+     * @return The type.
+     */
+    @Contract("_ -> new")
+    public static <E extends Enum<E>> @NotNull IArgumentType<E> enumeration(@NotNull Class<E> type) {
+        final E[] constants = type.getEnumConstants();
+        final Map<String, E> byName = new HashMap<>(constants.length * 2);
+        final List<String> names = new ArrayList<>(constants.length);
+
+        for (final E constant : constants) {
+            final String name = constant.name().toLowerCase(Locale.ROOT);
+            byName.put(name, constant);
+            names.add(name);
+        }
+
+        final PrefixIndex index = PrefixIndex.of(names);
+
+        return new IArgumentType<>() {
+            @Override
+            public @Nullable E parse(@NotNull CommandSender sender, @NotNull String input) {
+                return byName.get(input.toLowerCase(Locale.ROOT));
+            }
+
+            @Override
+            public @NotNull List<String> complete(@NotNull CommandSender sender, @NotNull String input) {
+                return index.matches(input);
+            }
+
+            @Override
+            public @NotNull String getErrorMessage(@NotNull String input) {
+                return "&c'" + input + "' is not one of " + String.join(", ", names) + ".";
+            }
+        };
+    }
+
+    // Only plain decimals, Double.parseDouble also takes things like "NaN", "Infinity" and "1e5d".
+    private static boolean looksLikeDecimal(final @NotNull String input) {
+        boolean digits = false;
+
+        for (int i = 0; i < input.length(); i++) {
+            final char c = input.charAt(i);
+
+            if (c >= '0' && c <= '9')
+                digits = true;
+            else if (!(c == '.' || ((c == '-' || c == '+') && i == 0)))
+                return false;
+        }
+
+        return digits;
+    }
+}
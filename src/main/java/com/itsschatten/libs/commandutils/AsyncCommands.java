@@ -0,0 +1,317 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.Utils;
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs commands off the main thread, for commands that {@link UserCommand#setAsync(boolean) opted in}.
+ * <p>
+ * Commands run on virtual threads by default, see {@link #usePlatformThreads(int)} for a fixed pool instead.
+ * Every sender may only have {@link #setMaxInFlight(int) so many} commands running at once, and once
+ * {@link #register(JavaPlugin) registered} the commands of a player are interrupted when they quit.
+ * <p>
+ * The Bukkit API must still be used from the main thread, use {@link #callSync(Callable)}, {@link #runSync(Runnable)}
+ * or {@link #supplySync(Supplier)} for that. Call {@link #shutdown()} in your plugin's onDisable.
+ */
+public final class AsyncCommands implements Listener {
+
+    /**
+     * The commands that are running, by the sender that executed them.
+     */
+    private static final Map<Object, Set<Future<?>>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /**
+     * How many async commands one sender may have running at once.
+     */
+    @Getter
+    @Setter
+    private static volatile int maxInFlight = 1;
+
+    /**
+     * The message sent when a sender already has {@link #maxInFlight} commands running.
+     */
+    @Getter
+    @Setter
+    private static String busyMessage = "&cPlease wait for your previous command to finish.";
+
+    /**
+     * The message sent when an async command throws an error.
+     */
+    @Getter
+    @Setter
+    private static String errorMessage = "&cAn internal error occurred while attempting to perform this command.";
+
+    /**
+     * Set while an async command runs on the current thread.
+     */
+    private static final ThreadLocal<Boolean> COMMAND_THREAD = new ThreadLocal<>();
+
+    private static volatile ExecutorService executor = newVirtualExecutor();
+
+    private static volatile boolean registered;
+
+    private AsyncCommands() {
+    }
+
+    /**
+     * Registers the listener that interrupts the commands of players that quit. Does nothing if already registered.
+     *
+     * @param plugin The plugin to register the listener for.
+     */
+    public static void register(@NotNull JavaPlugin plugin) {
+        if (registered)
+            return;
+
+        Bukkit.getPluginManager().registerEvents(new AsyncCommands(), plugin);
+        registered = true;
+    }
+
+    /**
+     * Runs commands on a new virtual thread each, this is the default.
+     * Commands already running are not affected.
+     */
+    public static void useVirtualThreads() {
+        replaceExecutor(newVirtualExecutor());
+    }
+
+    /**
+     * Runs commands on a fixed amount of platform threads.
+     * Commands already running are not affected.
+     *
+     * @param threads How many threads to use.
+     */
+    public static void usePlatformThreads(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+
+        replaceExecutor(Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "ShadowLibs Command " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Runs a command task for a sender, unless they already have {@link #getMaxInFlight()} commands running.
+     *
+     * @param sender Who executed the command.
+     * @param task   The command.
+     * @return The running task, or null if the sender has too many commands running.
+     * @throws RejectedExecutionException If the executor is shutting down, the task is not counted against the sender.
+     */
+    public static Future<?> submit(@NotNull CommandSender sender, @NotNull Runnable task) {
+        final Object key = keyOf(sender);
+        final FutureTask<Void> future = new FutureTask<>(task, null) {
+            @Override
+            public void run() {
+                COMMAND_THREAD.set(Boolean.TRUE);
+
+                try {
+                    super.run();
+                } finally {
+                    COMMAND_THREAD.remove();
+                }
+            }
+
+            @Override
+            protected void done() {
+                IN_FLIGHT.computeIfPresent(key, (k, running) -> {
+                    running.remove(this);
+                    return running.isEmpty() ? null : running;
+                });
+            }
+        };
+
+        final boolean[] accepted = {false};
+        IN_FLIGHT.compute(key, (k, running) -> {
+            if (running == null)
+                running = ConcurrentHashMap.newKeySet();
+
+            if (running.size() < maxInFlight) {
+                running.add(future);
+                accepted[0] = true;
+            }
+
+            return running.isEmpty() ? null : running;
+        });
+
+        if (!accepted[0])
+            return null;
+
+        try {
+            executor.execute(future);
+        } catch (final RejectedExecutionException ex) {
+            // Never runs, cancelling it removes it from the running commands.
+            future.cancel(false);
+            throw ex;
+        }
+
+        return future;
+    }
+
+    /**
+     * Gets how many async commands a sender has running.
+     *
+     * @param sender The sender.
+     * @return The amount of running commands.
+     */
+    public static int getInFlight(@NotNull CommandSender sender) {
+        final Set<Future<?>> running = IN_FLIGHT.get(keyOf(sender));
+        return running == null ? 0 : running.size();
+    }
+
+    /**
+     * Checks if an async command is running on this thread.
+     *
+     * @return True on a command thread, false on the main thread or anywhere else.
+     */
+    static boolean isCommandThread() {
+        return COMMAND_THREAD.get() != null;
+    }
+
+    /**
+     * Interrupts every async command a sender has running.
+     *
+     * @param sender The sender.
+     */
+    public static void cancel(@NotNull CommandSender sender) {
+        cancel(keyOf(sender));
+    }
+
+    /**
+     * Calls something on the main thread and waits for the result, or calls it right away if this is the main thread.
+     *
+     * @param callable What to call.
+     * @param <T>      The type of the result.
+     * @return The result.
+     * @throws CancellationException If this thread was interrupted while waiting, for example because the player quit.
+     * @throws RuntimeException      If the callable threw, with that as its cause.
+     */
+    public static <T> T callSync(@NotNull Callable<T> callable) {
+        try {
+            if (Bukkit.isPrimaryThread())
+                return callable.call();
+
+            return Bukkit.getScheduler().callSyncMethod(Utils.getInstance(), callable).get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the main thread.");
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw new RuntimeException(ex.getCause());
+        } catch (final RuntimeException ex) {
+            throw ex;
+        } catch (final Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Runs something on the main thread and waits for it to finish, or runs it right away if this is the main thread.
+     *
+     * @param runnable What to run.
+     * @see #callSync(Callable)
+     */
+    public static void runSync(@NotNull Runnable runnable) {
+        callSync(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Gets something on the main thread without waiting for it.
+     *
+     * @param supplier What to get.
+     * @param <T>      The type of the result.
+     * @return A future completed on the main thread with the result.
+     */
+    public static <T> @NotNull CompletableFuture<T> supplySync(@NotNull Supplier<T> supplier) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Bukkit.getScheduler().runTask(Utils.getInstance(), () -> {
+            try {
+                future.complete(supplier.get());
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Interrupts every running command and stops the executor, waiting up to 5 seconds for commands to finish.
+     */
+    public static void shutdown() {
+        for (final Object key : IN_FLIGHT.keySet())
+            cancel(key);
+
+        final ExecutorService current = executor;
+        current.shutdown();
+
+        try {
+            if (!current.awaitTermination(5, TimeUnit.SECONDS))
+                Utils.logWarning("Some async commands did not finish in time.");
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        executor = newVirtualExecutor();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(final @NotNull PlayerQuitEvent event) {
+        cancel(event.getPlayer().getUniqueId());
+    }
+
+    private static void cancel(final @NotNull Object key) {
+        final Set<Future<?>> running = IN_FLIGHT.get(key);
+        if (running == null)
+            return;
+
+        for (final Future<?> future : running)
+            future.cancel(true);
+    }
+
+    // Players are tracked by UUID so a command started before a relog is still found, everyone else by themselves.
+    private static @NotNull Object keyOf(final @NotNull CommandSender sender) {
+        return sender instanceof Player player ? player.getUniqueId() : sender;
+    }
+
+    private static void replaceExecutor(final @NotNull ExecutorService replacement) {
+        final ExecutorService previous = executor;
+        executor = replacement;
+        previous.shutdown();
+    }
+
+    private static @NotNull ExecutorService newVirtualExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ShadowLibs Command ", 1).factory());
+    }
+}
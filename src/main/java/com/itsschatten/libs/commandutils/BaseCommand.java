@@ -0,0 +1,334 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.MessageTemplate;
+import com.itsschatten.libs.Utils;
+import com.itsschatten.libs.interfaces.ISuggestionSource;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * What {@link ContextUserCommand}, {@link ContextUniversalCommand} and {@link ContextConsoleCommand} share, they only differ
+ * in who may use them. {@link UserCommand}, {@link UniversalCommand} and {@link ConsoleCommand} add the {@code run(sender, args)} methods.
+ * <p>
+ * Every execution gets its own {@link CommandContext}, the helpers in this class work on the context of the execution
+ * running on the calling thread.
+ */
+abstract class BaseCommand extends Command {
+
+    /**
+     * The context of the execution running on each thread.
+     */
+    private final ThreadLocal<CommandContext> current = new ThreadLocal<>();
+
+    /**
+     * The prefix, {@link Utils#getPrefix()} at the time of execution when not set.
+     */
+    @Setter(AccessLevel.PROTECTED)
+    private String prefix;
+
+    /**
+     * If the command runs on the {@link AsyncCommands} executor instead of the main thread.
+     * Use {@link AsyncCommands#callSync(java.util.concurrent.Callable)} for anything that touches the Bukkit API.
+     */
+    @Getter
+    @Setter(AccessLevel.PROTECTED)
+    private boolean async;
+
+    /**
+     * The sub commands and arguments of this command, when set they are used to run and tab complete it.
+     */
+    @Getter
+    private CommandTree tree;
+
+    /**
+     * The suggestions of each argument when there is no tree, by the argument's index.
+     */
+    private ISuggestionSource[] completions = new ISuggestionSource[0];
+
+    /**
+     * How often each player may use this command, checked before it runs. Null for no limit.
+     * Only commands players can use expose this, see {@link RateLimit}.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.PACKAGE)
+    private RateLimit rateLimit;
+
+    /**
+     * How often this command ran and how long it took.
+     */
+    @Getter
+    private final CommandMetrics metrics;
+
+    BaseCommand(final String name) {
+        super(name);
+        this.metrics = CommandMetrics.of(pluginName(getClass()), name);
+    }
+
+    // The plugin a command belongs to, the same name Bukkit uses for /plugin:name.
+    private static @NotNull String pluginName(final @NotNull Class<?> type) {
+        try {
+            return JavaPlugin.getProvidingPlugin(type).getName();
+        } catch (final IllegalArgumentException | IllegalStateException ex) {
+            // Not loaded by a plugin, use the plugin this library belongs to.
+            return Utils.getInstance() == null ? "unknown" : Utils.getInstance().getName();
+        }
+    }
+
+    /**
+     * Checks if a sender may use this command, and tells them why not if they may not.
+     *
+     * @param sender Who executed the command.
+     * @return True if the command may run.
+     */
+    abstract boolean accepts(@NotNull CommandSender sender);
+
+    @Override
+    public boolean execute(@NotNull CommandSender sender, @NotNull String commandLabel, String[] args) {
+        if (!accepts(sender))
+            return true;
+
+        final CommandContext context = new CommandContext(sender, commandLabel, args, prefix == null ? Utils.getPrefix() : prefix);
+
+        if (rateLimit != null && !rateLimit.tryAcquire(sender, context.getPrefix()))
+            return true;
+
+        if (!async) {
+            invoke(context);
+            return true;
+        }
+
+        final Future<?> future;
+
+        try {
+            future = AsyncCommands.submit(sender, () -> {
+                try {
+                    invoke(context);
+                } catch (final CancellationException ex) {
+                    // The sender left, or the plugin is being disabled.
+                } catch (final Throwable t) {
+                    if (Thread.currentThread().isInterrupted())
+                        return;
+
+                    Utils.logError(t);
+                    Utils.tell(sender, AsyncCommands.getErrorMessage());
+                }
+            });
+        } catch (final RejectedExecutionException ex) {
+            // The executor was replaced or shut down.
+            Utils.logError(ex);
+            Utils.tell(sender, AsyncCommands.getErrorMessage());
+            return true;
+        }
+
+        if (future == null)
+            Utils.tell(sender, AsyncCommands.getBusyMessage());
+
+        return true;
+    }
+
+    // Runs the command with its context set for this thread.
+    private void invoke(final @NotNull CommandContext context) {
+        final CommandContext previous = current.get();
+        current.set(context);
+
+        final long start = System.nanoTime();
+        CommandMetrics.Outcome outcome = CommandMetrics.Outcome.ERROR;
+
+        try {
+            run(context);
+            outcome = CommandMetrics.Outcome.SUCCESS;
+        } catch (final ReturnedCommandException ex) {
+            outcome = CommandMetrics.Outcome.FAILED;
+            ex.tell(context.getSender());
+        } finally {
+            metrics.record(System.nanoTime() - start, outcome);
+
+            // The command may have executed itself.
+            if (previous == null)
+                current.remove();
+            else
+                current.set(previous);
+        }
+    }
+
+    /**
+     * What runs the command, the context is only valid until this returns.
+     * Commands with a {@link #setTree(CommandTree) tree} usually just call {@code getTree().dispatch(context)}.
+     *
+     * @param context The context of this execution.
+     */
+    protected abstract void run(CommandContext context);
+
+    /**
+     * Sets the sub commands and arguments of this command, usually from the constructor.
+     * The tree is used for tab completion, {@link #run(CommandContext)} still has to dispatch to it.
+     *
+     * @param tree The tree, see {@link CommandTree#builder()}.
+     */
+    protected void setTree(CommandTree tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Sets where the suggestions of an argument come from, used when the command has no {@link #setTree(CommandTree) tree}.
+     *
+     * @param argument The index of the argument, starting at 0.
+     * @param source   The suggestions, see {@link Suggestions}.
+     */
+    protected void setCompletion(int argument, ISuggestionSource source) {
+        if (argument >= completions.length)
+            completions = Arrays.copyOf(completions, argument + 1);
+
+        completions[argument] = source;
+    }
+
+    @Override
+    public @NotNull List<String> tabComplete(@NotNull CommandSender sender, @NotNull String alias, String @NotNull [] args) throws IllegalArgumentException {
+        if (tree != null)
+            return tree.complete(sender, Arrays.asList(args));
+
+        final ISuggestionSource source = args.length == 0 || args.length > completions.length ? null : completions[args.length - 1];
+        if (source == null)
+            return super.tabComplete(sender, alias, args);
+
+        return source.getIndex(sender).matches(args[args.length - 1]);
+    }
+
+    /**
+     * Gets the context of the execution running on this thread.
+     *
+     * @return The context.
+     * @throws IllegalStateException If this command isn't being executed on this thread.
+     */
+    protected CommandContext getContext() {
+        final CommandContext context = current.get();
+        if (context == null)
+            throw new IllegalStateException("/" + getName() + " is not being executed on this thread.");
+        return context;
+    }
+
+    /**
+     * The command label of the execution running on this thread.
+     *
+     * @return The command label, or null if this command isn't being executed on this thread.
+     */
+    public String getCommandLabel() {
+        final CommandContext context = current.get();
+        return context == null ? null : context.getLabel();
+    }
+
+    /**
+     * Ensure that an argument is actually a number.
+     *
+     * @param argsIndex    The argument location.
+     * @param from         The minimum value.
+     * @param to           The maximum value.
+     * @param errorMessage The message to send if it doesn't match.
+     * @return Returns the number (If valid)
+     */
+    protected int getNumber(int argsIndex, int from, int to, String errorMessage) {
+        return getContext().getNumber(argsIndex, from, to, errorMessage);
+    }
+
+    /**
+     * An alteration of the above method, that doesn't take a from or to parameter.
+     *
+     * @param argsIndex    The numbers location.
+     * @param errorMessage The message to send if it doesn't equal a number.
+     * @return Returns the number (If not valid 0)
+     */
+    protected int getNumber(int argsIndex, String errorMessage) {
+        return getContext().getNumber(argsIndex, errorMessage);
+    }
+
+    /**
+     * Check if an object is equal to null, if so sends a message to the sender.
+     *
+     * @param toCheck     The object to check.
+     * @param nullMessage The message to send if it does equal null.
+     */
+    protected void checkNotNull(Object toCheck, String nullMessage) {
+        getContext().checkNotNull(toCheck, nullMessage);
+    }
+
+    /**
+     * Check the argument length.
+     *
+     * @param minLength The minimum length the arguments must be.
+     * @param message   The message to send to someone if it doesn't work.
+     */
+    protected void checkArgs(int minLength, String message) {
+        getContext().checkArgs(minLength, message);
+    }
+
+    /**
+     * Kind of an alteration of the checkArgs.
+     *
+     * @param requiredAmount The amount of arguments.
+     * @param message        The message to send if it doesn't equal the arguments.
+     */
+    protected void checkArgsStrict(int requiredAmount, String message) {
+        getContext().checkArgsStrict(requiredAmount, message);
+    }
+
+    /**
+     * Send a message to a user and also return.
+     *
+     * @param message The message to send.
+     * @throws ReturnedCommandException When the command is returned this is thrown.
+     */
+    protected void returnTell(String message) {
+        throw new ReturnedCommandException(message, false);
+    }
+
+    /**
+     * Send a message from a template to a user and also return.
+     *
+     * @param template The message to send, {prefix} is filled in.
+     */
+    protected void returnTell(MessageTemplate template) {
+        getContext().returnTell(template);
+    }
+
+    /**
+     * Send a message from a template to a user and also return.
+     *
+     * @param template     The message to send.
+     * @param placeholders The values of the placeholders in the template, by name.
+     */
+    protected void returnTell(MessageTemplate template, Map<String, ?> placeholders) {
+        getContext().returnTell(template, placeholders);
+    }
+
+    /**
+     * Send a message to the sender.
+     *
+     * @param message The message to send.
+     */
+    protected void tell(String message) {
+        getContext().tell(message);
+    }
+
+    /**
+     * Tell another player a message.
+     *
+     * @param target The player to tell.
+     * @param msg    The message to send.
+     */
+    protected void tellTarget(Player target, String msg) {
+        Utils.tell(target, msg);
+    }
+}
@@ -0,0 +1,340 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.MessageTemplate;
+import com.itsschatten.libs.PermissionCache;
+import com.itsschatten.libs.PermissionNode;
+import com.itsschatten.libs.Utils;
+import com.itsschatten.libs.interfaces.IPermissions;
+import lombok.Getter;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Everything about a single execution of a command.
+ * <p>
+ * A new context is created every time a command is executed and it never changes, so it can be handed to other threads
+ * and two executions of the same command can never see each other's arguments.
+ * The helpers that stop the command throw a {@link ReturnedCommandException}, which the command classes catch.
+ */
+@Getter
+public final class CommandContext {
+
+    /**
+     * Returned by {@link #parseInt(String)} for anything that isn't an int, it's outside the range of an int.
+     */
+    static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    /**
+     * Who executed the command.
+     */
+    private final CommandSender sender;
+
+    /**
+     * The label the command was executed with, in lower case.
+     */
+    private final String label;
+
+    /**
+     * The arguments of the command, this list can't be modified.
+     */
+    private final List<String> args;
+
+    /**
+     * The prefix used to fill in {prefix} in templates.
+     */
+    private final String prefix;
+
+    /**
+     * Creates a context.
+     *
+     * @param sender Who executed the command.
+     * @param label  The label the command was executed with.
+     * @param args   The arguments of the command, they are copied.
+     * @param prefix The prefix used to fill in {prefix} in templates.
+     */
+    public CommandContext(@NotNull CommandSender sender, @NotNull String label, String @NotNull [] args, @NotNull String prefix) {
+        this.sender = sender;
+        this.label = label.toLowerCase();
+        this.args = List.of(args);
+        this.prefix = prefix;
+    }
+
+    /**
+     * Gets an argument.
+     *
+     * @param index The index of the argument.
+     * @return The argument, or null if there are not that many arguments.
+     */
+    public @Nullable String getArg(int index) {
+        return index >= 0 && index < args.size() ? args.get(index) : null;
+    }
+
+    /**
+     * @return How many arguments there are.
+     */
+    public int getArgCount() {
+        return args.size();
+    }
+
+    /**
+     * @return A new array with the arguments, for code that still works with arrays.
+     */
+    @Contract(" -> new")
+    public String @NotNull [] getArgsArray() {
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * @return True if the sender is a player.
+     */
+    public boolean isPlayer() {
+        return sender instanceof Player;
+    }
+
+    /**
+     * Gets the sender as a player.
+     *
+     * @return The player.
+     * @throws ClassCastException If the sender isn't a player.
+     */
+    public @NotNull Player getPlayer() {
+        return (Player) sender;
+    }
+
+    /**
+     * Ensure that an argument is actually a number.
+     *
+     * @param argsIndex    The argument location.
+     * @param from         The minimum value.
+     * @param to           The maximum value.
+     * @param errorMessage The message to send if it doesn't match, {min} and {max} are filled in.
+     * @return Returns the number (If valid)
+     */
+    public int getNumber(int argsIndex, int from, int to, String errorMessage) {
+        final long number = parseInt(args.get(argsIndex));
+
+        if (number == NOT_A_NUMBER || number < from || number > to)
+            returnTell(errorMessage.replace("{min}", from + "").replace("{max}", to + ""));
+
+        return (int) number;
+    }
+
+    /**
+     * Ensure that an argument is actually a number.
+     *
+     * @param argsIndex    The numbers location.
+     * @param errorMessage The message to send if it doesn't equal a number.
+     * @return Returns the number (If valid)
+     */
+    public int getNumber(int argsIndex, String errorMessage) {
+        final long number = parseInt(args.get(argsIndex));
+
+        if (number == NOT_A_NUMBER)
+            returnTell(errorMessage);
+
+        return (int) number;
+    }
+
+    /**
+     * Gets an argument as a number, without stopping the command.
+     *
+     * @param argsIndex The argument location.
+     * @return The number, or empty if there is no such argument or it isn't a number.
+     */
+    public @NotNull OptionalInt tryNumber(int argsIndex) {
+        final long number = parseInt(getArg(argsIndex));
+        return number == NOT_A_NUMBER ? OptionalInt.empty() : OptionalInt.of((int) number);
+    }
+
+    /**
+     * Gets an argument as a number within a range, without stopping the command.
+     *
+     * @param argsIndex The argument location.
+     * @param from      The minimum value.
+     * @param to        The maximum value.
+     * @return The number, or empty if there is no such argument, it isn't a number or it's out of range.
+     */
+    public @NotNull OptionalInt tryNumber(int argsIndex, int from, int to) {
+        final long number = parseInt(getArg(argsIndex));
+        return number == NOT_A_NUMBER || number < from || number > to ? OptionalInt.empty() : OptionalInt.of((int) number);
+    }
+
+    /**
+     * Checks if an argument is a number, without stopping the command.
+     *
+     * @param argsIndex The argument location.
+     * @return True if the argument exists and is a number.
+     */
+    public boolean isNumber(int argsIndex) {
+        return parseInt(getArg(argsIndex)) != NOT_A_NUMBER;
+    }
+
+    /**
+     * Checks the argument length, without stopping the command.
+     *
+     * @param minLength The minimum length the arguments must be.
+     * @return True if there are at least that many arguments.
+     */
+    public boolean hasArgs(int minLength) {
+        return args.size() >= minLength;
+    }
+
+    /**
+     * Checks if the sender has a permission, without stopping the command.
+     *
+     * @param perms The permission.
+     * @return True if the sender has the permission.
+     */
+    public boolean hasPerms(@NotNull IPermissions perms) {
+        return PermissionCache.has(sender, perms);
+    }
+
+    /**
+     * Check if an object is equal to null, if so sends a message to the sender.
+     *
+     * @param toCheck     The object to check.
+     * @param nullMessage The message to send if it does equal null.
+     */
+    public void checkNotNull(Object toCheck, String nullMessage) {
+        if (toCheck == null)
+            returnTell(nullMessage);
+    }
+
+    /**
+     * Check the argument length.
+     *
+     * @param minLength The minimum length the arguments must be.
+     * @param message   The message to send to someone if it doesn't work.
+     */
+    public void checkArgs(int minLength, String message) {
+        if (args.size() < minLength)
+            returnTell(message);
+    }
+
+    /**
+     * Kind of an alteration of checkArgs.
+     *
+     * @param requiredAmount The amount of arguments.
+     * @param message        The message to send if it doesn't equal the arguments.
+     */
+    public void checkArgsStrict(int requiredAmount, String message) {
+        if (args.size() != requiredAmount)
+            returnTell(message);
+    }
+
+    /**
+     * Check if the sender has a permission.
+     *
+     * @param perms The permission, usually an enumeration, to run the command.
+     */
+    public void checkPerms(@NotNull IPermissions perms) {
+        checkPerms(sender, perms);
+    }
+
+    /**
+     * Check if someone has a permission, the no permission message is sent to the sender of this command.
+     *
+     * @param who   The one to check the permission for.
+     * @param perms The permission, usually an enumeration, to run the command.
+     */
+    public void checkPerms(@NotNull CommandSender who, @NotNull IPermissions perms) {
+        final PermissionNode node = perms.getNode();
+
+        if (!PermissionCache.has(who, node))
+            throw new ReturnedCommandException(Utils.getNoPermsTemplate().render("prefix", prefix, "permission", node.getPermission()), true);
+    }
+
+    /**
+     * Send a message to the sender and also return.
+     *
+     * @param message The message to send.
+     * @throws ReturnedCommandException Always, to stop the command.
+     */
+    @Contract("_ -> fail")
+    public void returnTell(String message) {
+        throw new ReturnedCommandException(message, false);
+    }
+
+    /**
+     * Send a message from a template to the sender and also return.
+     *
+     * @param template The message to send, {prefix} is filled in.
+     * @throws ReturnedCommandException Always, to stop the command.
+     */
+    @Contract("_ -> fail")
+    public void returnTell(MessageTemplate template) {
+        throw new ReturnedCommandException(template.render("prefix", prefix), true);
+    }
+
+    /**
+     * Send a message from a template to the sender and also return.
+     *
+     * @param template     The message to send.
+     * @param placeholders The values of the placeholders in the template, by name.
+     * @throws ReturnedCommandException Always, to stop the command.
+     */
+    @Contract("_, _ -> fail")
+    public void returnTell(MessageTemplate template, Map<String, ?> placeholders) {
+        throw new ReturnedCommandException(template.render(name -> placeholders.containsKey(name) ? placeholders.get(name) : name.equals("prefix") ? prefix : null), true);
+    }
+
+    /**
+     * Send a message to the sender.
+     *
+     * @param message The message to send.
+     */
+    public void tell(String message) {
+        Utils.tell(sender, message);
+    }
+
+    /**
+     * Tell someone else a message.
+     *
+     * @param target The one to tell.
+     * @param msg    The message to send.
+     */
+    public void tellTarget(CommandSender target, String msg) {
+        Utils.tell(target, msg);
+    }
+
+    /**
+     * Parses an int the same way {@link Integer#parseInt(String)} does, without throwing.
+     *
+     * @param value The text to parse, may be null.
+     * @return The number, or {@link #NOT_A_NUMBER} if it isn't an int.
+     */
+    static long parseInt(final @Nullable String value) {
+        if (value == null || value.isEmpty())
+            return NOT_A_NUMBER;
+
+        final int length = value.length();
+        final char first = value.charAt(0);
+        final boolean negative = first == '-';
+        int i = first == '-' || first == '+' ? 1 : 0;
+
+        if (i == length)
+            return NOT_A_NUMBER;
+
+        final long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long result = 0;
+
+        for (; i < length; i++) {
+            final int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0)
+                return NOT_A_NUMBER;
+
+            result = result * 10 + digit;
+            if (result > limit)
+                return NOT_A_NUMBER;
+        }
+
+        return negative ? -result : result;
+    }
+}
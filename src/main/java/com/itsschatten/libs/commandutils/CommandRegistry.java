@@ -0,0 +1,259 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.Utils;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Registers commands without the plugin.yml, and removes them again when the plugin is disabled.
+ * <p>
+ * The server's {@link CommandMap} is looked up once and kept, so registering many commands costs one reflective lookup in total.
+ * Commands registered after the server started are sent to online players right away.
+ * Call {@link #unregisterCommands()} in your plugin's onDisable so a reload doesn't leave stale commands behind.
+ */
+@UtilityClass
+public class CommandRegistry {
+
+    /**
+     * Every command registered through this class.
+     */
+    private static final Set<Command> REGISTERED = ConcurrentHashMap.newKeySet();
+
+    private static volatile CommandMap commandMap;
+
+    /**
+     * Reads SimpleCommandMap.knownCommands, null if it couldn't be found.
+     */
+    private static VarHandle knownCommands;
+
+    /**
+     * CraftServer.syncCommands, null if it couldn't be found.
+     */
+    private static MethodHandle syncCommands;
+
+    /**
+     * Gets the server's command map, it's only looked up the first time.
+     *
+     * @return The command map.
+     * @throws IllegalStateException If the command map couldn't be found.
+     */
+    public static @NotNull CommandMap getCommandMap() {
+        final CommandMap map = commandMap;
+        return map != null ? map : resolve();
+    }
+
+    /**
+     * Registers a command for {@link Utils#getInstance() the plugin}.
+     *
+     * @param command The command.
+     */
+    public static void registerCommand(@NotNull Command command) {
+        registerCommands(List.of(command));
+    }
+
+    /**
+     * Registers commands for {@link Utils#getInstance() the plugin}, and sends them to online players once.
+     *
+     * @param commands The commands.
+     */
+    public static void registerCommands(@NotNull Collection<? extends Command> commands) {
+        if (commands.isEmpty())
+            return;
+
+        final CommandMap map = getCommandMap();
+        final String fallbackPrefix = Utils.getInstance().getName();
+
+        for (final Command command : commands) {
+            map.register(fallbackPrefix, command);
+            REGISTERED.add(command);
+        }
+
+        sync();
+    }
+
+    /**
+     * Finds every command in a package, and the packages inside it, of the plugin's jar and registers it.
+     * <p>
+     * Only classes that extend {@link Command}, aren't abstract and have a public constructor without parameters are registered.
+     *
+     * @param packageName The package, for example {@code "com.example.plugin.commands"}.
+     * @return The commands that were registered.
+     */
+    public static @NotNull List<Command> registerCommands(@NotNull String packageName) {
+        final List<Command> commands = new ArrayList<>();
+        final ClassLoader loader = Utils.getInstance().getClass().getClassLoader();
+        final String path = packageName.replace('.', '/') + '/';
+
+        try (final JarFile jar = new JarFile(pluginJar())) {
+            for (final Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                final String name = entries.nextElement().getName();
+
+                if (!name.startsWith(path) || !name.endsWith(".class") || name.indexOf('$') != -1)
+                    continue;
+
+                final Command command = instantiate(name.substring(0, name.length() - 6).replace('/', '.'), loader);
+                if (command != null)
+                    commands.add(command);
+            }
+        } catch (final IOException ex) {
+            Utils.logError(ex);
+            Utils.logError("Failed to scan '" + packageName + "' for commands.");
+        }
+
+        registerCommands(commands);
+        return commands;
+    }
+
+    // Creates a command from a class found while scanning, null if it isn't one or fails to load, so one bad class doesn't stop the scan.
+    private static @Nullable Command instantiate(final @NotNull String className, final @NotNull ClassLoader loader) {
+        try {
+            final Class<?> type = Class.forName(className, false, loader);
+            if (!Command.class.isAssignableFrom(type) || Modifier.isAbstract(type.getModifiers()))
+                return null;
+
+            final Constructor<?> constructor;
+            try {
+                constructor = type.getConstructor();
+            } catch (final NoSuchMethodException ex) {
+                Utils.debugLog(() -> "Skipping command " + className + ", it has no public constructor without parameters.");
+                return null;
+            }
+
+            return (Command) constructor.newInstance();
+        } catch (final ReflectiveOperationException | LinkageError ex) {
+            Utils.logError(ex);
+            Utils.logError("Failed to create the command " + className + ", skipping it.");
+            return null;
+        }
+    }
+
+    /**
+     * Removes a command registered through this class, with its aliases.
+     *
+     * @param command The command.
+     */
+    public static void unregisterCommand(@NotNull Command command) {
+        if (REGISTERED.remove(command)) {
+            remove(List.of(command));
+            sync();
+        }
+    }
+
+    /**
+     * Removes every command registered through this class, with their aliases.
+     */
+    public static void unregisterCommands() {
+        if (REGISTERED.isEmpty())
+            return;
+
+        final List<Command> commands = new ArrayList<>(REGISTERED);
+        REGISTERED.clear();
+
+        remove(commands);
+        sync();
+    }
+
+    /**
+     * @return The commands registered through this class.
+     */
+    public static @NotNull List<Command> getRegistered() {
+        return new ArrayList<>(REGISTERED);
+    }
+
+    // Takes the commands out of the map, including every "plugin:name" and alias entry.
+    @SuppressWarnings("unchecked")
+    private static void remove(final @NotNull Collection<Command> commands) {
+        final CommandMap map = getCommandMap();
+
+        for (final Command command : commands)
+            command.unregister(map);
+
+        if (knownCommands == null || !(map instanceof SimpleCommandMap))
+            return;
+
+        final Map<String, Command> known = (Map<String, Command>) knownCommands.get(map);
+        known.values().removeIf(commands::contains);
+    }
+
+    private static synchronized @NotNull CommandMap resolve() {
+        if (commandMap != null)
+            return commandMap;
+
+        final Server server = Bukkit.getServer();
+
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(server.getClass(), MethodHandles.lookup());
+            final VarHandle field = lookup.unreflectVarHandle(server.getClass().getDeclaredField("commandMap"));
+            final CommandMap map = (CommandMap) field.get(server);
+
+            try {
+                knownCommands = MethodHandles.privateLookupIn(SimpleCommandMap.class, MethodHandles.lookup())
+                        .findVarHandle(SimpleCommandMap.class, "knownCommands", Map.class);
+            } catch (final ReflectiveOperationException ex) {
+                Utils.debugLog(() -> "Couldn't find SimpleCommandMap.knownCommands, aliases won't be cleaned up when unregistering.");
+            }
+
+            try {
+                syncCommands = lookup.findVirtual(server.getClass(), "syncCommands", MethodType.methodType(void.class));
+            } catch (final ReflectiveOperationException ex) {
+                Utils.debugLog(() -> "Couldn't find syncCommands, players are updated one by one instead.");
+            }
+
+            commandMap = map;
+            return map;
+        } catch (final ReflectiveOperationException ex) {
+            throw new IllegalStateException("Couldn't find the command map of " + server.getClass().getName() + ".", ex);
+        }
+    }
+
+    // Sends the commands to online players, before anyone joined there is no one to send them to.
+    private static void sync() {
+        if (Bukkit.getOnlinePlayers().isEmpty())
+            return;
+
+        if (syncCommands != null) {
+            try {
+                syncCommands.invoke(Bukkit.getServer());
+                return;
+            } catch (final Throwable t) {
+                Utils.logError(t);
+            }
+        }
+
+        for (final Player player : Bukkit.getOnlinePlayers())
+            player.updateCommands();
+    }
+
+    private static @NotNull File pluginJar() {
+        try {
+            return new File(Utils.getInstance().getClass().getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (final Exception ex) {
+            throw new IllegalStateException("Couldn't find the jar of " + Utils.getInstance().getName() + ".", ex);
+        }
+    }
+}
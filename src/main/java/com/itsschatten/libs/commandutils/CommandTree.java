@@ -0,0 +1,358 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.PermissionCache;
+import com.itsschatten.libs.interfaces.IArgumentType;
+import com.itsschatten.libs.interfaces.IPermissions;
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The sub commands and arguments of a command, built once and then used for every execution and tab completion.
+ * <p>
+ * A tree is made of literals (fixed words, matched ignoring case) and typed arguments. Executing walks the tree along the
+ * arguments that were typed, literals are looked up in a map and arguments are parsed by their {@link IArgumentType type},
+ * the node that is reached runs with the parsed values.
+ * <pre>{@code
+ * setTree(CommandTree.builder()
+ *         .usage("&cUsage: /eco <give|take> <player> <amount>")
+ *         .literal("give", give -> give
+ *                 .argument("target", ArgumentTypes.player(), target -> target
+ *                         .argument("amount", ArgumentTypes.integer(1, 10000), amount -> amount
+ *                                 .executes((context, args) -> give(args.getPlayer("target"), args.getInt("amount"))))))
+ *         .build());
+ *
+ * protected void run(CommandContext context) {
+ *     getTree().dispatch(context);
+ * }
+ * }</pre>
+ * When nothing matches, the error of the argument that got the furthest is sent, or the usage of the deepest node that has one,
+ * or {@link #getNoMatchMessage()} if none has.
+ */
+public final class CommandTree {
+
+    /**
+     * The message sent when nothing matches and no node on the way has a usage.
+     */
+    @Getter
+    @Setter
+    private static String noMatchMessage = "&cThose arguments don't match this command.";
+
+    private final Compiled root;
+
+    /**
+     * The most arguments on any path, the size of the array values are parsed into.
+     */
+    private final int slots;
+
+    private CommandTree(final @NotNull Compiled root, final int slots) {
+        this.root = root;
+        this.slots = slots;
+    }
+
+    /**
+     * Starts building a tree.
+     *
+     * @return The root node.
+     */
+    @Contract(" -> new")
+    public static @NotNull Node builder() {
+        return new Node(null, null, null);
+    }
+
+    /**
+     * Runs the node the arguments of a context lead to.
+     *
+     * @param context The context of the execution.
+     * @throws ReturnedCommandException If nothing matched, with the error or usage to send.
+     */
+    public void dispatch(@NotNull CommandContext context) {
+        if (root.permission != null)
+            context.checkPerms(root.permission);
+
+        final Failure failure = new Failure();
+
+        if (!walk(root, context, context.getArgs(), 0, new Object[slots], failure))
+            context.returnTell(failure.message == null ? noMatchMessage : failure.message);
+    }
+
+    /**
+     * Gets the suggestions for the last argument.
+     *
+     * @param sender Who is typing the command.
+     * @param args   The arguments typed so far, the last one is the one being typed.
+     * @return The suggestions.
+     */
+    public @NotNull List<String> complete(@NotNull CommandSender sender, @NotNull List<String> args) {
+        if (args.isEmpty() || (root.permission != null && !PermissionCache.has(sender, root.permission)))
+            return List.of();
+
+        final Set<String> suggestions = new LinkedHashSet<>();
+        complete(root, sender, args, 0, suggestions);
+        return new ArrayList<>(suggestions);
+    }
+
+    // Walks down the tree, true once a node has run.
+    private boolean walk(final @NotNull Compiled node, final @NotNull CommandContext context, final @NotNull List<String> args,
+                         final int index, final Object @NotNull [] values, final @NotNull Failure failure) {
+        if (index == args.size()) {
+            if (node.executor == null) {
+                failure.offer(index, node.usage);
+                return false;
+            }
+
+            node.executor.execute(context, new ParsedArguments(node.names, Arrays.copyOf(values, node.names.length)));
+            return true;
+        }
+
+        final String arg = args.get(index);
+        final Compiled literal = node.literals.get(arg.toLowerCase(Locale.ROOT));
+
+        if (literal != null) {
+            if (literal.permission != null)
+                context.checkPerms(literal.permission);
+
+            if (walk(literal, context, args, index + 1, values, failure))
+                return true;
+        }
+
+        for (final Compiled argument : node.arguments) {
+            if (argument.permission != null && !context.hasPerms(argument.permission))
+                continue;
+
+            final boolean greedy = argument.type.isGreedy();
+            final String input = greedy ? String.join(" ", args.subList(index, args.size())) : arg;
+            final Object value = argument.type.parse(context.getSender(), input);
+
+            if (value == null) {
+                failure.offer(index + 1, argument.type.getErrorMessage(input));
+                continue;
+            }
+
+            values[argument.slot] = value;
+            if (walk(argument, context, args, greedy ? args.size() : index + 1, values, failure))
+                return true;
+        }
+
+        // Too many arguments, or a literal that doesn't exist.
+        failure.offer(index, node.usage);
+        return false;
+    }
+
+    private void complete(final @NotNull Compiled node, final @NotNull CommandSender sender, final @NotNull List<String> args,
+                          final int index, final @NotNull Set<String> suggestions) {
+        final String arg = args.get(index);
+
+        if (index == args.size() - 1) {
+            for (final String name : node.literalNames.matches(arg)) {
+                final Compiled literal = node.literals.get(name);
+
+                if (literal.permission == null || PermissionCache.has(sender, literal.permission))
+                    suggestions.add(name);
+            }
+
+            for (final Compiled argument : node.arguments)
+                if (argument.permission == null || PermissionCache.has(sender, argument.permission))
+                    suggestions.addAll(argument.type.complete(sender, arg));
+            return;
+        }
+
+        final Compiled literal = node.literals.get(arg.toLowerCase(Locale.ROOT));
+        if (literal != null && (literal.permission == null || PermissionCache.has(sender, literal.permission)))
+            complete(literal, sender, args, index + 1, suggestions);
+
+        for (final Compiled argument : node.arguments) {
+            // Greedy arguments only suggest for their first word.
+            if (argument.type.isGreedy() || (argument.permission != null && !PermissionCache.has(sender, argument.permission)))
+                continue;
+
+            if (argument.type.parse(sender, arg) != null)
+                complete(argument, sender, args, index + 1, suggestions);
+        }
+    }
+
+    // Turns a node and everything below it into its compiled form.
+    private static @NotNull Compiled compile(final @NotNull Node node, final @NotNull List<String> path, final @Nullable String inheritedUsage, final int @NotNull [] slots) {
+        final String usage = node.usage == null ? inheritedUsage : node.usage;
+        final Map<String, Compiled> literals = new HashMap<>();
+        final List<Compiled> arguments = new ArrayList<>();
+
+        slots[0] = Math.max(slots[0], path.size());
+
+        if (node.type != null && node.type.isGreedy() && !node.children.isEmpty())
+            throw new IllegalArgumentException("The greedy argument '" + node.name + "' can't have children.");
+
+        for (final Node child : node.children) {
+            if (child.literal != null) {
+                final String key = child.literal.toLowerCase(Locale.ROOT);
+                if (literals.put(key, compile(child, path, usage, slots)) != null)
+                    throw new IllegalArgumentException("The literal '" + key + "' is defined twice.");
+                continue;
+            }
+
+            if (path.contains(child.name))
+                throw new IllegalArgumentException("The argument name '" + child.name + "' is used twice on one path.");
+
+            final List<String> childPath = new ArrayList<>(path);
+            childPath.add(child.name);
+            arguments.add(compile(child, childPath, usage, slots));
+        }
+
+        return new Compiled(node.type, path.size() - 1, node.permission, node.executor, usage, path.toArray(new String[0]),
+                Map.copyOf(literals), PrefixIndex.of(literals.keySet()), arguments.toArray(new Compiled[0]));
+    }
+
+    /**
+     * Runs a node of a tree.
+     */
+    @FunctionalInterface
+    public interface Executor {
+        /**
+         * Runs the node.
+         *
+         * @param context   The context of the execution.
+         * @param arguments The parsed arguments on the path to the node.
+         */
+        void execute(@NotNull CommandContext context, @NotNull ParsedArguments arguments);
+    }
+
+    /**
+     * A node of a tree that is being built.
+     */
+    public static final class Node {
+        private final String literal;
+        private final String name;
+        private final IArgumentType<?> type;
+        private final List<Node> children = new ArrayList<>();
+        private IPermissions permission;
+        private Executor executor;
+        private String usage;
+
+        private Node(final String literal, final String name, final IArgumentType<?> type) {
+            this.literal = literal;
+            this.name = name;
+            this.type = type;
+        }
+
+        /**
+         * Adds a literal, a fixed word.
+         *
+         * @param literal The word, matched ignoring case.
+         * @param body    Builds the literal's node.
+         * @return This node.
+         */
+        @Contract("_, _ -> this")
+        public @NotNull Node literal(@NotNull String literal, @NotNull Consumer<Node> body) {
+            final Node child = new Node(literal, null, null);
+            body.accept(child);
+            children.add(child);
+            return this;
+        }
+
+        /**
+         * Adds an argument, arguments are tried in the order they were added.
+         *
+         * @param name The name the value is available by in {@link ParsedArguments}.
+         * @param type The type of the argument.
+         * @param body Builds the argument's node.
+         * @return This node.
+         */
+        @Contract("_, _, _ -> this")
+        public @NotNull Node argument(@NotNull String name, @NotNull IArgumentType<?> type, @NotNull Consumer<Node> body) {
+            final Node child = new Node(null, name, type);
+            body.accept(child);
+            children.add(child);
+            return this;
+        }
+
+        /**
+         * Sets the permission needed to use this node and everything below it.
+         *
+         * @param permission The permission.
+         * @return This node.
+         */
+        @Contract("_ -> this")
+        public @NotNull Node permission(@NotNull IPermissions permission) {
+            this.permission = permission;
+            return this;
+        }
+
+        /**
+         * Sets what runs when the arguments end at this node.
+         *
+         * @param executor What runs.
+         * @return This node.
+         */
+        @Contract("_ -> this")
+        public @NotNull Node executes(@NotNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the message sent when the arguments stop at, or go past, this node or a node below it without a usage of its own.
+         *
+         * @param usage The message.
+         * @return This node.
+         */
+        @Contract("_ -> this")
+        public @NotNull Node usage(@NotNull String usage) {
+            this.usage = usage;
+            return this;
+        }
+
+        /**
+         * Compiles the tree, call this on the root node.
+         *
+         * @return The tree.
+         * @throws IllegalArgumentException If a literal or argument name is used twice, or a greedy argument has children.
+         */
+        @Contract(" -> new")
+        public @NotNull CommandTree build() {
+            final int[] slots = {0};
+            return new CommandTree(compile(this, List.of(), null, slots), slots[0]);
+        }
+    }
+
+    /**
+     * A node of a built tree.
+     *
+     * @param type         The type if this is an argument.
+     * @param slot         The slot of the argument's value.
+     * @param names        The names of the arguments on the path to this node, by slot.
+     * @param literals     The literal children, by lower case name.
+     * @param literalNames The names of the literal children, to complete them by prefix.
+     * @param arguments    The argument children, in the order they are tried.
+     */
+    private record Compiled(IArgumentType<?> type, int slot, IPermissions permission, Executor executor, String usage,
+                            String[] names, Map<String, Compiled> literals, PrefixIndex literalNames, Compiled[] arguments) {
+    }
+
+    /**
+     * The error of whatever got the furthest.
+     */
+    private static final class Failure {
+        private int depth = -1;
+        private String message;
+
+        private void offer(final int depth, final @Nullable String message) {
+            if (message != null && depth > this.depth) {
+                this.depth = depth;
+                this.message = message;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.Utils;
+import lombok.Setter;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The class that will run a command for the console, implementing {@link #run(CommandContext)}.
+ * <p>
+ * Every execution gets its own {@link CommandContext}, the helpers in this class work on the context of the execution
+ * running on the calling thread. {@link ConsoleCommand} is the same command with the {@code run(CommandSender, String[])} method.
+ */
+public abstract class ContextConsoleCommand extends BaseCommand {
+
+    @Setter
+    private static String onlyConsole = "&cOnly console can use this command.";
+
+    /**
+     * The constructor of the class.
+     *
+     * @param name The command name.
+     */
+    public ContextConsoleCommand(String name) {
+        super(name);
+        setPrefix(Utils.getPrefix());
+    }
+
+    @Override
+    final boolean accepts(@NotNull CommandSender sender) {
+        if (!(sender instanceof Player))
+            return true;
+
+        Utils.tell(sender, onlyConsole);
+        return false;
+    }
+
+}
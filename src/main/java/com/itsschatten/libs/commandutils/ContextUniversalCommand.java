@@ -0,0 +1,59 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.interfaces.IPermissions;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The class that will run a command for any sender, implementing {@link #run(CommandContext)}.
+ * <p>
+ * Every execution gets its own {@link CommandContext}, the helpers in this class work on the context of the execution
+ * running on the calling thread. {@link UniversalCommand} is the same command with the {@code run(CommandSender, String[])} method.
+ */
+public abstract class ContextUniversalCommand extends BaseCommand {
+
+    /**
+     * The constructor of the class.
+     *
+     * @param name The command name.
+     */
+    public ContextUniversalCommand(String name) {
+        super(name);
+    }
+
+    @Override
+    final boolean accepts(@NotNull CommandSender sender) {
+        return true;
+    }
+
+    /**
+     * How often each player may use this command.
+     *
+     * @return The rate limit, or null for no limit.
+     */
+    @Override
+    public RateLimit getRateLimit() {
+        return super.getRateLimit();
+    }
+
+    /**
+     * Sets how often each player may use this command, checked before it runs.
+     *
+     * @param rateLimit The rate limit, see {@link RateLimit#builder()}, or null for no limit.
+     */
+    @Override
+    protected void setRateLimit(RateLimit rateLimit) {
+        super.setRateLimit(rateLimit);
+    }
+
+    /**
+     * Check if the person executing the command has permission to do so.
+     *
+     * @param sender The sender to check if they have permission for.
+     * @param perms  The permission, usually an enumeration in my case, to run the command.
+     */
+    protected void checkPerms(CommandSender sender, IPermissions perms) {
+        getContext().checkPerms(sender, perms);
+    }
+
+}
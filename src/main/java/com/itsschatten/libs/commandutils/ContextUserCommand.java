@@ -0,0 +1,70 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.interfaces.IPermissions;
+import com.itsschatten.libs.Utils;
+import lombok.Setter;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The class that will run a command for a player, implementing {@link #run(CommandContext)}.
+ * <p>
+ * Every execution gets its own {@link CommandContext}, the helpers in this class work on the context of the execution
+ * running on the calling thread. {@link UserCommand} is the same command with the {@code run(Player, String[])} method.
+ */
+public abstract class ContextUserCommand extends BaseCommand {
+
+    @Setter
+    private static String onlyPlayer = "&cI'm sorry only players can use this command.";
+
+    /**
+     * The constructor of the class.
+     *
+     * @param name The command name.
+     */
+    public ContextUserCommand(String name) {
+        super(name);
+        setPrefix(Utils.getPrefix());
+    }
+
+    @Override
+    final boolean accepts(@NotNull CommandSender sender) {
+        if (sender instanceof Player)
+            return true;
+
+        Utils.tell(sender, onlyPlayer);
+        return false;
+    }
+
+    /**
+     * How often each player may use this command.
+     *
+     * @return The rate limit, or null for no limit.
+     */
+    @Override
+    public RateLimit getRateLimit() {
+        return super.getRateLimit();
+    }
+
+    /**
+     * Sets how often each player may use this command, checked before it runs.
+     *
+     * @param rateLimit The rate limit, see {@link RateLimit#builder()}, or null for no limit.
+     */
+    @Override
+    protected void setRateLimit(RateLimit rateLimit) {
+        super.setRateLimit(rateLimit);
+    }
+
+    /**
+     * Check if the person executing the command has permission to do so.
+     *
+     * @param player The player to check if they have permission for.
+     * @param perms  The permission, usually an enumeration in my case, to run the command.
+     */
+    protected void checkPerms(@NotNull Player player, @NotNull IPermissions perms) {
+        getContext().checkPerms(player, perms);
+    }
+
+}
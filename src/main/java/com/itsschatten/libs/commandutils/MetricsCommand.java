@@ -0,0 +1,129 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.interfaces.IArgumentType;
+import com.itsschatten.libs.interfaces.IPermissions;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A diagnostics command that shows the {@link CommandMetrics} of every command, register it like any other command.
+ * <ul>
+ *     <li>{@code /<name>} lists the commands that took the most time in total.</li>
+ *     <li>{@code /<name> <command>} or {@code /<name> show <command>} shows the details of one command.</li>
+ *     <li>{@code /<name> reset} resets every metric, this needs its own permission.</li>
+ * </ul>
+ * Commands are named {@code plugin:name}, just the name works when only one plugin has a command with that name.
+ */
+public final class MetricsCommand extends ContextUniversalCommand {
+
+    /**
+     * How many commands are listed.
+     */
+    private static final int LIST_SIZE = 10;
+
+    /**
+     * A command that has metrics.
+     */
+    private static final IArgumentType<CommandMetrics> COMMAND = new IArgumentType<>() {
+        @Override
+        public @Nullable CommandMetrics parse(@NotNull CommandSender sender, @NotNull String input) {
+            return CommandMetrics.get(input);
+        }
+
+        @Override
+        public @NotNull List<String> complete(@NotNull CommandSender sender, @NotNull String input) {
+            final List<String> names = new ArrayList<>();
+            for (final CommandMetrics metrics : CommandMetrics.getAll())
+                if (metrics.getCommand().regionMatches(true, 0, input, 0, input.length())
+                        || metrics.getName().regionMatches(true, 0, input, 0, input.length()))
+                    names.add(metrics.getName());
+            return names;
+        }
+
+        @Override
+        public @NotNull String getErrorMessage(@NotNull String input) {
+            return "&cThere are no metrics for '" + input + "'.";
+        }
+    };
+
+    /**
+     * Creates the command, resetting the metrics needs the permission followed by {@code .reset}.
+     *
+     * @param name       The name of the command.
+     * @param permission The permission needed to use it.
+     */
+    public MetricsCommand(@NotNull String name, @NotNull IPermissions permission) {
+        this(name, permission, () -> permission.getPermission() + ".reset");
+    }
+
+    /**
+     * Creates the command.
+     *
+     * @param name            The name of the command.
+     * @param permission      The permission needed to use it.
+     * @param resetPermission The permission needed to reset the metrics.
+     */
+    public MetricsCommand(@NotNull String name, @NotNull IPermissions permission, @NotNull IPermissions resetPermission) {
+        super(name);
+        setDescription("Shows how often commands ran and how long they took.");
+        setPermission(permission.getPermission());
+
+        setTree(CommandTree.builder()
+                .permission(permission)
+                .usage("&cUsage: /" + name + " [command|show <command>|reset]")
+                .executes((context, args) -> list(context))
+                .literal("show", show -> show
+                        .usage("&cUsage: /" + name + " show <command>")
+                        .argument("command", COMMAND, command -> command
+                                .executes((context, args) -> show(context, args.get("command")))))
+                .literal("reset", reset -> reset
+                        .permission(resetPermission)
+                        .executes((context, args) -> {
+                            CommandMetrics.resetAll();
+                            context.tell("&aThe metrics of every command were reset.");
+                        }))
+                .argument("command", COMMAND, command -> command
+                        .executes((context, args) -> show(context, args.get("command"))))
+                .build());
+    }
+
+    @Override
+    protected void run(CommandContext context) {
+        getTree().dispatch(context);
+    }
+
+    private static void list(final @NotNull CommandContext context) {
+        final List<CommandMetrics> all = new ArrayList<>(CommandMetrics.getAll());
+        all.removeIf(metrics -> metrics.getInvocations() == 0);
+
+        if (all.isEmpty()) {
+            context.tell("&7No command has run yet.");
+            return;
+        }
+
+        all.sort(Comparator.comparingDouble((CommandMetrics metrics) -> metrics.getMeanNanos() * metrics.getInvocations()).reversed());
+
+        context.tell("&6Commands by total time &7(" + Math.min(LIST_SIZE, all.size()) + " of " + all.size() + ")");
+        for (final CommandMetrics metrics : all.subList(0, Math.min(LIST_SIZE, all.size())))
+            context.tell("&e/" + metrics.getName() + " &7" + metrics.getInvocations() + " runs, p50 " + millis(metrics.getPercentileNanos(50))
+                    + " p99 " + millis(metrics.getPercentileNanos(99)) + " max " + millis(metrics.getMaxNanos()));
+    }
+
+    private static void show(final @NotNull CommandContext context, final @NotNull CommandMetrics metrics) {
+        context.tell("&6Metrics of &e/" + metrics.getName());
+        context.tell("&7Runs: &f" + metrics.getInvocations() + " &7Failed: &f" + metrics.getFailures() + " &7Errors: &f" + metrics.getErrors());
+        context.tell("&7Mean: &f" + millis((long) metrics.getMeanNanos()) + " &7Max: &f" + millis(metrics.getMaxNanos()));
+        context.tell("&7p50: &f" + millis(metrics.getPercentileNanos(50)) + " &7p90: &f" + millis(metrics.getPercentileNanos(90))
+                + " &7p99: &f" + millis(metrics.getPercentileNanos(99)) + " &7p99.9: &f" + millis(metrics.getPercentileNanos(99.9)));
+    }
+
+    private static @NotNull String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+}
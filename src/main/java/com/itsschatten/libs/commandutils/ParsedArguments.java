@@ -0,0 +1,124 @@
+package com.itsschatten.libs.commandutils;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The parsed arguments of a {@link CommandTree command tree} execution, by name.
+ * <p>
+ * The names are worked out when the tree is built, every argument on the path to the executed node has a fixed slot.
+ */
+public final class ParsedArguments {
+
+    private final String[] names;
+
+    private final Object[] values;
+
+    ParsedArguments(final String @NotNull [] names, final Object @NotNull [] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * Gets an argument.
+     *
+     * @param name The name of the argument.
+     * @param <T>  The type of the argument.
+     * @return The value.
+     * @throws IllegalArgumentException If there is no argument with this name on the executed path.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> @NotNull T get(@NotNull String name) {
+        return (T) values[slotOf(name)];
+    }
+
+    /**
+     * Gets an argument by its slot, the position among the arguments on the executed path.
+     *
+     * @param slot The slot.
+     * @param <T>  The type of the argument.
+     * @return The value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> @NotNull T get(int slot) {
+        return (T) values[slot];
+    }
+
+    /**
+     * Checks if an argument exists on the executed path.
+     *
+     * @param name The name of the argument.
+     * @return True if it exists.
+     */
+    public boolean has(@NotNull String name) {
+        for (final String argument : names)
+            if (argument.equals(name))
+                return true;
+        return false;
+    }
+
+    /**
+     * Gets an argument, or a default if it's not on the executed path.
+     *
+     * @param name The name of the argument.
+     * @param def  The default.
+     * @param <T>  The type of the argument.
+     * @return The value or the default.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrDefault(@NotNull String name, @Nullable T def) {
+        for (int i = 0; i < names.length; i++)
+            if (names[i].equals(name))
+                return (T) values[i];
+        return def;
+    }
+
+    /**
+     * @param name The name of the argument.
+     * @return The argument as an int.
+     */
+    public int getInt(@NotNull String name) {
+        return (Integer) values[slotOf(name)];
+    }
+
+    /**
+     * @param name The name of the argument.
+     * @return The argument as a double.
+     */
+    public double getDouble(@NotNull String name) {
+        return (Double) values[slotOf(name)];
+    }
+
+    /**
+     * @param name The name of the argument.
+     * @return The argument as a string.
+     */
+    public @NotNull String getString(@NotNull String name) {
+        return (String) values[slotOf(name)];
+    }
+
+    /**
+     * @param name The name of the argument.
+     * @return The argument as a player.
+     */
+    public @NotNull Player getPlayer(@NotNull String name) {
+        return (Player) values[slotOf(name)];
+    }
+
+    /**
+     * @return How many arguments there are.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    private int slotOf(final @NotNull String name) {
+        // Paths are short, a scan is cheaper than hashing.
+        for (int i = 0; i < names.length; i++)
+            if (names[i].equals(name))
+                return i;
+
+        throw new IllegalArgumentException("There is no argument named '" + name + "'.");
+    }
+}
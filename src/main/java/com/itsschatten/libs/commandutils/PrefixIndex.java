@@ -0,0 +1,114 @@
+package com.itsschatten.libs.commandutils;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable, sorted set of suggestions that finds everything starting with a prefix with two binary searches,
+ * ignoring case.
+ *
+ * @see Suggestions
+ */
+public final class PrefixIndex {
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new String[0]);
+
+    /**
+     * The suggestions in lower case, sorted.
+     */
+    private final String[] keys;
+
+    /**
+     * The suggestions as they were given, in the same order as the keys.
+     */
+    private final String[] values;
+
+    private PrefixIndex(final String @NotNull [] keys, final String @NotNull [] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return An index without suggestions.
+     */
+    public static @NotNull PrefixIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Sorts suggestions into an index, duplicates are removed.
+     *
+     * @param suggestions The suggestions.
+     * @return The index.
+     */
+    @Contract("_ -> new")
+    public static @NotNull PrefixIndex of(@NotNull Collection<String> suggestions) {
+        final String[] sorted = suggestions.stream().distinct().toArray(String[]::new);
+        Arrays.sort(sorted, Comparator.comparing((String suggestion) -> suggestion.toLowerCase(Locale.ROOT)).thenComparing(Comparator.naturalOrder()));
+
+        final String[] keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++)
+            keys[i] = sorted[i].toLowerCase(Locale.ROOT);
+
+        return new PrefixIndex(keys, sorted);
+    }
+
+    /**
+     * Sorts suggestions into an index, duplicates are removed.
+     *
+     * @param suggestions The suggestions.
+     * @return The index.
+     */
+    @Contract("_ -> new")
+    public static @NotNull PrefixIndex of(String @NotNull ... suggestions) {
+        return of(Arrays.asList(suggestions));
+    }
+
+    /**
+     * Finds every suggestion that starts with a prefix, ignoring case.
+     *
+     * @param prefix The prefix.
+     * @return A new list with the matches, sorted.
+     */
+    public @NotNull List<String> matches(@NotNull String prefix) {
+        if (prefix.isEmpty())
+            return new ArrayList<>(Arrays.asList(values));
+
+        final String key = prefix.toLowerCase(Locale.ROOT);
+        final int from = lowerBound(key);
+        final int to = lowerBound(key + Character.MAX_VALUE);
+
+        return new ArrayList<>(Arrays.asList(values).subList(from, Math.max(from, to)));
+    }
+
+    /**
+     * @return How many suggestions there are.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    // The first index whose key is not less than the given key.
+    private int lowerBound(final @NotNull String key) {
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (keys[middle].compareTo(key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+}
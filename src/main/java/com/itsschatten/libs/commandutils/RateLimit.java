@@ -0,0 +1,213 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.MessageTemplate;
+import com.itsschatten.libs.PermissionCache;
+import com.itsschatten.libs.interfaces.IPermissions;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how often each player may use a command, checked before the command runs.
+ * <p>
+ * A player may use the command {@link #getPermits() permits} times in a row, after that one use is given back every
+ * {@link #getPeriod() period} / permits. With one permit this is a plain cooldown. Only the time at which the player is
+ * fully caught up is stored per player (the generic cell rate algorithm), updated with a compare and set,
+ * and players that are caught up are forgotten now and then.
+ * <p>
+ * Only players are limited, the console and command blocks never are, so only {@link ContextUserCommand} and
+ * {@link ContextUniversalCommand}, and the commands extending them, take a rate limit.
+ *
+ * @see UserCommand#setRateLimit(RateLimit)
+ */
+@Getter
+public final class RateLimit {
+
+    /**
+     * How many checks happen between looking for players that can be forgotten.
+     */
+    private static final int PURGE_INTERVAL = 1024;
+
+    /**
+     * Marks an entry that was purged, so a use that read it before it was removed doesn't write to it.
+     */
+    private static final long PURGED = Long.MIN_VALUE;
+
+    /**
+     * How many uses are allowed in a row.
+     */
+    private final int permits;
+
+    /**
+     * How long it takes to get all permits back.
+     */
+    private final Duration period;
+
+    /**
+     * The permission that skips the limit, may be null.
+     */
+    private final IPermissions bypass;
+
+    /**
+     * The message sent when a use is rejected, {remaining} is the time left in seconds and {prefix} the command's prefix.
+     */
+    private final MessageTemplate message;
+
+    @Getter(AccessLevel.NONE)
+    private final long interval;
+
+    @Getter(AccessLevel.NONE)
+    private final long tolerance;
+
+    /**
+     * The time each player is fully caught up at, in {@link System#nanoTime()}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, AtomicLong> caughtUp = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger checks = new AtomicInteger();
+
+    @Getter(AccessLevel.NONE)
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a rate limit, see {@link #builder()}.
+     *
+     * @param permits How many uses are allowed in a row, at least 1.
+     * @param period  How long it takes to get all permits back.
+     * @param bypass  The permission that skips the limit, or null.
+     * @param message The message sent when a use is rejected, or null for the default.
+     */
+    @Builder
+    private RateLimit(final int permits, final @NotNull Duration period, final @Nullable IPermissions bypass, final @Nullable MessageTemplate message) {
+        if (period.isNegative() || period.isZero())
+            throw new IllegalArgumentException("The period of a rate limit must be positive, got " + period + ".");
+
+        this.permits = Math.max(1, permits);
+        this.period = period;
+        this.bypass = bypass;
+        this.message = message == null ? MessageTemplate.of("&cPlease wait {remaining}s before using this command again.") : message;
+        this.interval = Math.max(1L, period.toNanos() / this.permits);
+        this.tolerance = interval * (this.permits - 1);
+    }
+
+    /**
+     * Creates a cooldown, one use per period.
+     *
+     * @param period The cooldown.
+     * @return The rate limit.
+     */
+    @Contract("_ -> new")
+    public static @NotNull RateLimit cooldown(@NotNull Duration period) {
+        return builder().permits(1).period(period).build();
+    }
+
+    /**
+     * Uses a permit for a sender, or sends them the message if they have none left.
+     *
+     * @param sender Who is using the command.
+     * @param prefix The prefix to fill in the message.
+     * @return True if the command may run.
+     */
+    public boolean tryAcquire(@NotNull CommandSender sender, @NotNull String prefix) {
+        final long wait = acquire(sender);
+        if (wait == 0)
+            return true;
+
+        sender.sendMessage(message.render("remaining", String.format(Locale.ROOT, "%.1f", wait / 1_000_000_000.0), "prefix", prefix));
+        return false;
+    }
+
+    /**
+     * Uses a permit for a sender.
+     *
+     * @param sender Who is using the command.
+     * @return 0 if a permit was used, otherwise how many nanoseconds until the next one.
+     */
+    public long acquire(@NotNull CommandSender sender) {
+        if (!(sender instanceof Player player) || (bypass != null && PermissionCache.has(player, bypass)))
+            return 0;
+
+        if (checks.incrementAndGet() % PURGE_INTERVAL == 0)
+            purge();
+
+        final long now = System.nanoTime();
+        AtomicLong state = caughtUp.computeIfAbsent(player.getUniqueId(), uuid -> new AtomicLong(now));
+
+        while (true) {
+            final long current = state.get();
+            if (current == PURGED) {
+                // Purged between the lookup and now, start over with the entry that replaces it.
+                caughtUp.remove(player.getUniqueId(), state);
+                state = caughtUp.computeIfAbsent(player.getUniqueId(), uuid -> new AtomicLong(now));
+                continue;
+            }
+
+            final long start = current - now > 0 ? current : now;
+            final long next = start + interval;
+            final long allowedAt = next - interval - tolerance;
+
+            if (allowedAt - now > 0) {
+                rejected.increment();
+                return allowedAt - now;
+            }
+
+            if (state.compareAndSet(current, next))
+                return 0;
+        }
+    }
+
+    /**
+     * Gives a player all permits back.
+     *
+     * @param uuid The UUID of the player.
+     */
+    public void reset(@NotNull UUID uuid) {
+        caughtUp.remove(uuid);
+    }
+
+    /**
+     * Forgets every player that has all permits back.
+     */
+    public void purge() {
+        final long now = System.nanoTime();
+
+        for (final Map.Entry<UUID, AtomicLong> entry : caughtUp.entrySet()) {
+            final AtomicLong state = entry.getValue();
+            final long current = state.get();
+
+            // Only forget the entry if no permit was used since it was read, a use that loses this race retries on a new entry.
+            if (current != PURGED && current - now <= 0 && state.compareAndSet(current, PURGED))
+                caughtUp.remove(entry.getKey(), state);
+        }
+    }
+
+    /**
+     * @return How many uses were rejected.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return How many players are tracked.
+     */
+    public int getTracked() {
+        return caughtUp.size();
+    }
+}
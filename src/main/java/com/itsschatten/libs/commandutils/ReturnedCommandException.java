@@ -0,0 +1,52 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.Utils;
+import lombok.Getter;
+import org.bukkit.command.CommandSender;
+
+import java.io.Serial;
+
+/**
+ * Thrown to stop a command and send its sender a message, the command classes catch this and send the message.
+ * <p>
+ * This is only used for control flow, so it has no stack trace and can't have suppressed exceptions,
+ * which makes throwing it about as cheap as creating any other object.
+ *
+ * @see CommandContext#returnTell(String)
+ */
+@Getter
+public final class ReturnedCommandException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The message to send.
+     */
+    private final String tellMessage;
+
+    /**
+     * If the message was rendered from a template, and is already colored.
+     */
+    private final boolean colored;
+
+    ReturnedCommandException(final String tellMessage, final boolean colored) {
+        super(tellMessage, null, false, false);
+        this.tellMessage = tellMessage;
+        this.colored = colored;
+    }
+
+    /**
+     * Sends the message to someone, coloring it if it isn't already. Nothing is sent for an empty message.
+     *
+     * @param sender Who to send the message to.
+     */
+    void tell(final CommandSender sender) {
+        if (tellMessage == null || tellMessage.isEmpty())
+            return;
+
+        if (colored)
+            sender.sendMessage(tellMessage);
+        else
+            Utils.tell(sender, tellMessage);
+    }
+}
@@ -0,0 +1,236 @@
+package com.itsschatten.libs.commandutils;
+
+import com.itsschatten.libs.Utils;
+import com.itsschatten.libs.interfaces.IArgumentType;
+import com.itsschatten.libs.interfaces.ISuggestionSource;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The built-in {@link ISuggestionSource suggestion sources}, for {@link UserCommand#setCompletion(int, ISuggestionSource)}
+ * and {@link #argument(IArgumentType, ISuggestionSource) tree arguments}.
+ * <p>
+ * Tab completion runs on the main thread for every key a player types, so suggestions are kept sorted in a
+ * {@link PrefixIndex} and reused: fixed suggestions are indexed once, suggestions that depend on the sender are
+ * remembered per sender for a short time, and expensive suggestions are loaded off the main thread while the previous
+ * ones keep being used.
+ */
+@UtilityClass
+public class Suggestions {
+
+    /**
+     * How long suggestions that depend on the sender are remembered by default.
+     */
+    private static final Duration SENDER_TTL = Duration.ofSeconds(2);
+
+    /**
+     * How many senders a source remembers before forgetting the expired ones.
+     */
+    private static final int PURGE_SIZE = 256;
+
+    private static final ISuggestionSource ONLINE_PLAYERS = perSender(sender -> {
+        final List<String> names = new ArrayList<>();
+
+        for (final Player player : Bukkit.getOnlinePlayers())
+            if (!(sender instanceof Player viewer) || viewer.canSee(player))
+                names.add(player.getName());
+
+        return names;
+    }, SENDER_TTL);
+
+    private static volatile ISuggestionSource offlinePlayers;
+
+    /**
+     * Fixed suggestions, indexed once.
+     *
+     * @param suggestions The suggestions.
+     * @return The source.
+     */
+    @Contract("_ -> new")
+    public static @NotNull ISuggestionSource of(String @NotNull ... suggestions) {
+        final PrefixIndex index = PrefixIndex.of(suggestions);
+        return sender -> index;
+    }
+
+    /**
+     * Fixed suggestions, indexed once.
+     *
+     * @param suggestions The suggestions.
+     * @return The source.
+     */
+    @Contract("_ -> new")
+    public static @NotNull ISuggestionSource of(@NotNull Collection<String> suggestions) {
+        final PrefixIndex index = PrefixIndex.of(suggestions);
+        return sender -> index;
+    }
+
+    /**
+     * Suggestions that depend on the sender, remembered per sender for a while.
+     * The loader runs on the main thread, use {@link #async(Supplier, Duration)} for anything slow.
+     *
+     * @param loader Gets the suggestions for a sender.
+     * @param ttl    How long the suggestions of a sender are remembered.
+     * @return The source.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull ISuggestionSource perSender(@NotNull Function<CommandSender, Collection<String>> loader, @NotNull Duration ttl) {
+        final long ttlNanos = ttl.toNanos();
+        final Map<Object, Cached> cache = new ConcurrentHashMap<>();
+
+        return sender -> {
+            final long now = System.nanoTime();
+            final Object key = sender instanceof Player player ? player.getUniqueId() : sender;
+            final Cached cached = cache.get(key);
+
+            if (cached != null && cached.expiresAt - now > 0)
+                return cached.index;
+
+            if (cache.size() >= PURGE_SIZE)
+                cache.values().removeIf(entry -> entry.expiresAt - now <= 0);
+
+            final PrefixIndex index = PrefixIndex.of(loader.apply(sender));
+            cache.put(key, new Cached(index, now + ttlNanos));
+            return index;
+        };
+    }
+
+    /**
+     * Suggestions that are slow to get, loaded off the main thread.
+     * <p>
+     * Once the suggestions are older than the refresh interval they are loaded again in the background, until that
+     * finishes the old suggestions are used. Nothing is suggested before the first load finishes.
+     *
+     * @param loader  Gets the suggestions, runs on an async task so it mustn't touch most of the Bukkit API.
+     * @param refresh How long suggestions are used before they are loaded again.
+     * @return The source.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull ISuggestionSource async(@NotNull Supplier<Collection<String>> loader, @NotNull Duration refresh) {
+        return new AsyncSource(loader, refresh.toNanos());
+    }
+
+    /**
+     * @return The names of the online players the sender can see, remembered per sender for two seconds.
+     */
+    public static @NotNull ISuggestionSource onlinePlayers() {
+        return ONLINE_PLAYERS;
+    }
+
+    /**
+     * The names of every player that has joined the server, loaded in the background once a minute.
+     *
+     * @return The source.
+     */
+    public static @NotNull ISuggestionSource offlinePlayers() {
+        ISuggestionSource source = offlinePlayers;
+
+        if (source == null) {
+            source = async(() -> {
+                final OfflinePlayer[] players = Bukkit.getOfflinePlayers();
+                final List<String> names = new ArrayList<>(players.length);
+
+                for (final OfflinePlayer player : players)
+                    if (player.getName() != null)
+                        names.add(player.getName());
+
+                return names;
+            }, Duration.ofMinutes(1));
+
+            offlinePlayers = source;
+        }
+
+        return source;
+    }
+
+    /**
+     * Gives an argument type of a {@link CommandTree} the suggestions of a source, parsing stays the same.
+     *
+     * @param type   The argument type.
+     * @param source The suggestions.
+     * @param <T>    The type of the parsed value.
+     * @return The argument type.
+     */
+    @Contract("_, _ -> new")
+    public static <T> @NotNull IArgumentType<T> argument(@NotNull IArgumentType<T> type, @NotNull ISuggestionSource source) {
+        return new IArgumentType<>() {
+            @Override
+            public @Nullable T parse(@NotNull CommandSender sender, @NotNull String input) {
+                return type.parse(sender, input);
+            }
+
+            @Override
+            public @NotNull List<String> complete(@NotNull CommandSender sender, @NotNull String input) {
+                return source.getIndex(sender).matches(input);
+            }
+
+            @Override
+            public @NotNull String getErrorMessage(@NotNull String input) {
+                return type.getErrorMessage(input);
+            }
+
+            @Override
+            public boolean isGreedy() {
+                return type.isGreedy();
+            }
+        };
+    }
+
+    /**
+     * Suggestions of a sender and when they expire, in {@link System#nanoTime()}.
+     */
+    private record Cached(PrefixIndex index, long expiresAt) {
+    }
+
+    /**
+     * Loads suggestions in the background and uses the last ones meanwhile.
+     */
+    private static final class AsyncSource implements ISuggestionSource {
+        private final Supplier<Collection<String>> loader;
+        private final long refreshNanos;
+        private final AtomicBoolean loading = new AtomicBoolean();
+        private volatile PrefixIndex index = PrefixIndex.empty();
+        private volatile long loadedAt;
+        private volatile boolean loaded;
+
+        private AsyncSource(final @NotNull Supplier<Collection<String>> loader, final long refreshNanos) {
+            this.loader = loader;
+            this.refreshNanos = refreshNanos;
+        }
+
+        @Override
+        public @NotNull PrefixIndex getIndex(@NotNull CommandSender sender) {
+            if ((!loaded || System.nanoTime() - loadedAt > refreshNanos) && loading.compareAndSet(false, true))
+                Bukkit.getScheduler().runTaskAsynchronously(Utils.getInstance(), this::load);
+
+            return index;
+        }
+
+        private void load() {
+            try {
+                index = PrefixIndex.of(loader.get());
+            } catch (final Throwable t) {
+                Utils.logError(t);
+            } finally {
+                loadedAt = System.nanoTime();
+                loaded = true;
+                loading.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.itsschatten.libs.configutils;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Limits how many {@link PlayerConfigManager configs} are kept in memory.
+ * <p>
+ * Configs belonging to online players are never evicted, everything else is dropped (after saving unsaved changes) once
+ * it has been idle for too long, or least recently used first when there are too many entries or they take up too much space.
+ *
+ * @see PlayerConfigManager#setCachePolicy(org.bukkit.plugin.java.JavaPlugin, CachePolicy)
+ */
+@Getter
+@Builder
+public final class CachePolicy {
+
+    /**
+     * The most configs to keep loaded.
+     */
+    @Builder.Default
+    private final int maxEntries = Integer.MAX_VALUE;
+
+    /**
+     * How long a config may go unused before it's evicted, null to never evict idle configs.
+     */
+    @Builder.Default
+    private final Duration idleTime = Duration.ofMinutes(30);
+
+    /**
+     * The most bytes of YAML, as last read or written, to keep loaded.
+     */
+    @Builder.Default
+    private final long maxBytes = Long.MAX_VALUE;
+
+    /**
+     * How often, in ticks, to check for configs to evict.
+     */
+    @Builder.Default
+    private final long sweepInterval = 20L * 60;
+
+    /**
+     * Checks if something last used at this time is idle.
+     *
+     * @param lastAccess The last time it was used, in milliseconds.
+     * @param now        The current time, in milliseconds.
+     * @return True if it has been unused for longer than {@link #idleTime}.
+     */
+    public boolean isIdle(long lastAccess, long now) {
+        return idleTime != null && now - lastAccess > idleTime.toMillis();
+    }
+}
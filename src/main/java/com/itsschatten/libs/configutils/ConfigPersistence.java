@@ -0,0 +1,281 @@
+package com.itsschatten.libs.configutils;
+
+import com.itsschatten.libs.Utils;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes configuration files to the disk, either right away or from a background thread.
+ * <p>
+ * Every write goes to a temporary file next to the target, which is synced to the disk and then moved over the target.
+ * A crash in the middle of a save can never leave a truncated file behind.
+ * <p>
+ * Background writes to the same file are coalesced, only the latest contents are written.
+ * Call {@link #shutdown()} at the end of your plugin's onDisable so nothing queued is lost and the background thread stops,
+ * this also saves every {@link SimpleConfig} that still has {@link SimpleConfig#setWriteDelay(long) delayed writes}.
+ */
+@UtilityClass
+public class ConfigPersistence {
+
+    /**
+     * The contents waiting to be written, by file.
+     */
+    private static final Map<Path, Pending> PENDING = new ConcurrentHashMap<>();
+
+    /**
+     * The configurations with delayed writes that haven't been saved yet.
+     */
+    private static final Set<SimpleConfig> DIRTY = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Locks so a file is never written by two threads at once, picked by the hash of the path.
+     */
+    private static final Object[] LOCKS = new Object[64];
+
+    /**
+     * The single thread that does all background writes, in the order they were queued. Replaced on {@link #shutdown()}.
+     */
+    private static volatile ExecutorService writer = newWriter();
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++)
+            LOCKS[i] = new Object();
+    }
+
+    /**
+     * Writes contents to a file on the calling thread, replacing anything that was queued for it.
+     *
+     * @param file     The file to write to.
+     * @param contents The contents of the file.
+     * @throws IOException If the file couldn't be written.
+     */
+    public static void write(@NotNull File file, @NotNull String contents) throws IOException {
+        final Path path = toPath(file);
+
+        synchronized (lockFor(path)) {
+            // This write is newer than anything waiting in the queue.
+            PENDING.remove(path);
+            writeAtomically(path, contents);
+        }
+    }
+
+    /**
+     * Queues contents to be written to a file from the background thread.
+     * If something is already queued for this file, it's replaced and only these contents are written.
+     *
+     * @param file     The file to write to.
+     * @param contents The contents of the file.
+     */
+    public static void writeAsync(@NotNull File file, @NotNull String contents) {
+        writeAsync(file, contents, null);
+    }
+
+    /**
+     * Queues contents to be written to a file from the background thread, and runs something once they are written.
+     * If something is already queued for this file, it's replaced and only these contents are written.
+     *
+     * @param file     The file to write to.
+     * @param contents The contents of the file.
+     * @param written  Runs on the thread that wrote the file, only if these contents were written successfully.
+     */
+    public static void writeAsync(@NotNull File file, @NotNull String contents, @Nullable Runnable written) {
+        final Path path = toPath(file);
+
+        if (PENDING.put(path, new Pending(contents, written)) == null) {
+            try {
+                writer.execute(() -> flush(path));
+            } catch (final RejectedExecutionException ex) {
+                // Shutting down, write it right away instead.
+                flush(path);
+            }
+        }
+    }
+
+    /**
+     * Writes anything queued for this file right away, on the calling thread.
+     * Use this before loading a file that might still have a save queued.
+     *
+     * @param file The file.
+     */
+    public static void flush(@NotNull File file) {
+        final Path path = toPath(file);
+
+        if (PENDING.containsKey(path))
+            flush(path);
+    }
+
+    /**
+     * Drops anything queued for this file, for example because it's being deleted.
+     *
+     * @param file The file.
+     */
+    public static void discard(@NotNull File file) {
+        final Path path = toPath(file);
+
+        synchronized (lockFor(path)) {
+            PENDING.remove(path);
+        }
+    }
+
+    /**
+     * Checks if a file has contents waiting to be written.
+     *
+     * @param file The file.
+     * @return True if a write is queued.
+     */
+    public static boolean isPending(@NotNull File file) {
+        return PENDING.containsKey(toPath(file));
+    }
+
+    /**
+     * Writes everything that is queued on the calling thread and waits for the background thread to finish what it's doing.
+     *
+     * @see #shutdown()
+     */
+    public static void flushAll() {
+        // Saving a configuration takes it out of the set.
+        for (final SimpleConfig config : DIRTY.toArray(new SimpleConfig[0]))
+            config.flush();
+
+        for (final Path path : PENDING.keySet())
+            flush(path);
+
+        try {
+            // Anything the background thread already picked up is done once this runs.
+            writer.submit(() -> {
+            }).get(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (final RejectedExecutionException ex) {
+            // Already shut down, everything was written on this thread.
+        } catch (final ExecutionException ex) {
+            Utils.logError(ex.getCause());
+            Utils.logError("Failed while waiting for configuration files to be saved.");
+        } catch (final TimeoutException ex) {
+            Utils.logError("Timed out while waiting for configuration files to be saved.");
+        }
+    }
+
+    /**
+     * Writes everything that is queued, like {@link #flushAll()}, and stops the background thread.
+     * This should be called at the end of your plugin's onDisable, so a reload doesn't leave the thread behind.
+     * Writes queued after this start a new background thread.
+     */
+    public static void shutdown() {
+        flushAll();
+
+        final ExecutorService current = writer;
+        writer = newWriter();
+        current.shutdown();
+
+        try {
+            if (!current.awaitTermination(10, TimeUnit.SECONDS))
+                Utils.logWarning("The configuration writer did not stop in time.");
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Anything queued while the old thread was stopping.
+        for (final Path path : PENDING.keySet())
+            flush(path);
+    }
+
+    // Remembers a configuration with delayed writes, so flushAll saves it.
+    static void track(final @NotNull SimpleConfig config) {
+        DIRTY.add(config);
+    }
+
+    // Forgets a configuration once its delayed writes are saved.
+    static void untrack(final @NotNull SimpleConfig config) {
+        DIRTY.remove(config);
+    }
+
+    // Writes the queued contents for a path, if they haven't been written already.
+    private static void flush(final Path path) {
+        synchronized (lockFor(path)) {
+            final Pending pending = PENDING.remove(path);
+            if (pending == null)
+                return;
+
+            try {
+                writeAtomically(path, pending.contents());
+            } catch (final IOException ex) {
+                Utils.logError(ex);
+                Utils.logError("Failed to save configuration to '" + path + "'.");
+                return;
+            }
+
+            if (pending.written() != null)
+                pending.written().run();
+        }
+    }
+
+    // Writes to a temporary file, syncs it and then moves it over the real file.
+    private static void writeAtomically(final @NotNull Path path, final @NotNull String contents) throws IOException {
+        final Path parent = path.getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static @NotNull ExecutorService newWriter() {
+        // The thread is only started once something is queued.
+        return Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "ShadowLibs Config Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Object lockFor(final @NotNull Path path) {
+        return LOCKS[(path.hashCode() & 0x7fffffff) % LOCKS.length];
+    }
+
+    private static @NotNull Path toPath(final @NotNull File file) {
+        return file.toPath().toAbsolutePath();
+    }
+
+    // Contents waiting to be written, and what runs once they are.
+    private record Pending(@NotNull String contents, @Nullable Runnable written) {
+    }
+}
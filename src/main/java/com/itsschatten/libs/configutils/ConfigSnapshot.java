@@ -0,0 +1,201 @@
+package com.itsschatten.libs.configutils;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A flat index of every value inside a {@link ConfigurationSection}, keyed by its full path.
+ * <p>
+ * Built once after a configuration is loaded so reads are a single hash lookup instead of walking
+ * through sections. Numbers have all of their primitive forms computed up front, so reading them never boxes.
+ * <p>
+ * The index can't be changed from outside this package, {@link SimpleConfig} updates the paths it sets.
+ * Values such as lists are the same instances held by the configuration.
+ */
+public final class ConfigSnapshot {
+
+    /**
+     * The full path to value index.
+     */
+    private final Map<String, Object> values;
+
+    private ConfigSnapshot(final Map<String, Object> values) {
+        this.values = values;
+    }
+
+    /**
+     * Compiles a snapshot of a section, sections themselves are not indexed only their values.
+     *
+     * @param section The section to compile.
+     * @return A new {@link ConfigSnapshot}.
+     */
+    @Contract("_ -> new")
+    public static @NotNull ConfigSnapshot of(@NotNull ConfigurationSection section) {
+        final Map<String, Object> values = new ConcurrentHashMap<>();
+
+        for (final Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+            final Object value = entry.getValue();
+            if (value == null || value instanceof ConfigurationSection) continue;
+
+            values.put(entry.getKey(), index(value));
+        }
+
+        return new ConfigSnapshot(values);
+    }
+
+    /**
+     * Sets the value of a path, null removes it. Sections are not indexed, use {@link #removeBelow(String)} for them.
+     *
+     * @param path  The full path.
+     * @param value The value.
+     */
+    void put(final @NotNull String path, final @Nullable Object value) {
+        if (value == null)
+            values.remove(path);
+        else
+            values.put(path, index(value));
+    }
+
+    /**
+     * Removes every value below a path, for when the section at that path is replaced.
+     *
+     * @param path The full path of the section.
+     */
+    void removeBelow(final @NotNull String path) {
+        final String prefix = path + ".";
+        values.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    // The form a value is kept in.
+    private static @NotNull Object index(final @NotNull Object value) {
+        return value instanceof Number number ? new NumberValue(number) : value;
+    }
+
+    /**
+     * Checks if a value exists at this path.
+     *
+     * @param path The full path.
+     * @return True if a value was indexed at the path.
+     */
+    public boolean contains(@NotNull String path) {
+        return values.containsKey(path);
+    }
+
+    /**
+     * @return The amount of values in this snapshot.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Gets a raw value from the snapshot.
+     *
+     * @param path The full path.
+     * @return The value, or null if it wasn't indexed.
+     */
+    public @Nullable Object get(@NotNull String path) {
+        final Object value = values.get(path);
+        return value instanceof NumberValue number ? number.original : value;
+    }
+
+    /**
+     * Gets a value as a string, the same way {@link ConfigurationSection#getString(String)} does.
+     *
+     * @param path The full path.
+     * @return The string, or null if it wasn't indexed.
+     */
+    public @Nullable String getString(@NotNull String path) {
+        final Object value = values.get(path);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Checks if the value at this path is a number.
+     *
+     * @param path The full path.
+     * @return True if it's a number.
+     */
+    public boolean isNumber(@NotNull String path) {
+        return values.get(path) instanceof NumberValue;
+    }
+
+    /**
+     * Gets a number as an int.
+     *
+     * @param path The full path.
+     * @param def  The value to return if the path isn't a number.
+     * @return The int.
+     */
+    public int getInt(@NotNull String path, int def) {
+        return values.get(path) instanceof NumberValue number ? number.intValue : def;
+    }
+
+    /**
+     * Gets a number as a long.
+     *
+     * @param path The full path.
+     * @param def  The value to return if the path isn't a number.
+     * @return The long.
+     */
+    public long getLong(@NotNull String path, long def) {
+        return values.get(path) instanceof NumberValue number ? number.longValue : def;
+    }
+
+    /**
+     * Gets a number as a double.
+     *
+     * @param path The full path.
+     * @param def  The value to return if the path isn't a number.
+     * @return The double.
+     */
+    public double getDouble(@NotNull String path, double def) {
+        return values.get(path) instanceof NumberValue number ? number.doubleValue : def;
+    }
+
+    /**
+     * Checks if the value at this path is a boolean.
+     *
+     * @param path The full path.
+     * @return True if it's a boolean.
+     */
+    public boolean isBoolean(@NotNull String path) {
+        return values.get(path) instanceof Boolean;
+    }
+
+    /**
+     * Gets a boolean.
+     *
+     * @param path The full path.
+     * @param def  The value to return if the path isn't a boolean.
+     * @return The boolean.
+     */
+    public boolean getBoolean(@NotNull String path, boolean def) {
+        return values.get(path) instanceof Boolean bool ? bool : def;
+    }
+
+    // Holds every primitive form of a number, so reads never have to convert or box it.
+    private static final class NumberValue {
+        private final Number original;
+        private final int intValue;
+        private final long longValue;
+        private final double doubleValue;
+
+        private NumberValue(@NotNull Number original) {
+            this.original = original;
+            this.intValue = original.intValue();
+            this.longValue = original.longValue();
+            this.doubleValue = original.doubleValue();
+        }
+
+        @Override
+        public String toString() {
+            return original.toString();
+        }
+    }
+}
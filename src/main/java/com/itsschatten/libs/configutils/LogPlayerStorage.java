@@ -0,0 +1,480 @@
+package com.itsschatten.libs.configutils;
+
+import com.itsschatten.libs.Utils;
+import com.itsschatten.libs.interfaces.IPlayerStorage;
+import lombok.Getter;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Stores every player in one append only log file, with an in memory index of where each player's latest record is.
+ * <p>
+ * Saving a player appends a record and loading one is a single positioned read, so thousands of players cost one open file
+ * instead of thousands of small ones. Records that were replaced or deleted are cleaned up by {@link #compact() compacting} the log,
+ * which {@link #flush()} does on its own once more than half of the file is unused.
+ * <p>
+ * Appends are not synced to the disk one by one, {@link #flush()} does that, see {@link #scheduleMaintenance(JavaPlugin, long)}.
+ * Every record carries a CRC32. When the file is opened, a record that doesn't match its checksum is skipped and the next
+ * intact record is searched for, only a damaged tail (a record that was only partly written, or zeroes) is cut off the file.
+ * <p>
+ * The file starts with a 4 byte marker, every record after that is the UUID (two longs), the length of the YAML
+ * (an int, -1 when the player was deleted), the CRC32 of everything before it in the record and of the YAML (an int),
+ * and the YAML itself as UTF-8.
+ */
+public final class LogPlayerStorage implements IPlayerStorage {
+
+    /**
+     * Marks the start of a storage file, "SLP2".
+     */
+    private static final int MAGIC = 0x534C5032;
+
+    private static final int HEADER_SIZE = Integer.BYTES;
+
+    /**
+     * Where the checksum is in a record, everything before it is covered by the checksum.
+     */
+    private static final int CHECKSUM_OFFSET = Long.BYTES * 2 + Integer.BYTES;
+
+    private static final int RECORD_HEADER_SIZE = CHECKSUM_OFFSET + Integer.BYTES;
+
+    /**
+     * Compacting is skipped until there is at least this much unused space.
+     */
+    private static final long MIN_COMPACT_GARBAGE = 1024L * 1024L;
+
+    /**
+     * The log file.
+     */
+    private final Path path;
+
+    /**
+     * Where the latest record of each player is.
+     */
+    private final Map<UUID, Entry> index = new HashMap<>();
+
+    private FileChannel channel;
+
+    /**
+     * Where the next record is written.
+     */
+    private long end;
+
+    /**
+     * The bytes taken up by records that are still in use, and by records that were replaced or deleted.
+     */
+    private long liveBytes, garbageBytes;
+
+    /**
+     * Taken for the whole of a {@link #compact() compaction}, so only one runs at a time.
+     */
+    private final Object compactLock = new Object();
+
+    /**
+     * How many bytes of unfinished or corrupt records were dropped when the file was opened.
+     * -- GETTER --
+     * Gets how many bytes of unfinished or corrupt records were skipped or cut off the end of the file when it was opened.
+     *
+     * @return The bytes, 0 if the file was intact.
+     */
+    @Getter
+    private long droppedBytes;
+
+    /**
+     * Opens, or creates, a storage file and reads its index.
+     *
+     * @param file The log file.
+     * @throws IOException If the file couldn't be opened or isn't a storage file.
+     */
+    public LogPlayerStorage(@NotNull File file) throws IOException {
+        this.path = file.toPath().toAbsolutePath();
+        open();
+    }
+
+    @Override
+    public synchronized @Nullable String load(@NotNull UUID uuid) throws IOException {
+        ensureOpen();
+
+        final Entry entry = index.get(uuid);
+        if (entry == null)
+            return null;
+
+        final ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        readFully(buffer, entry.position() + RECORD_HEADER_SIZE);
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void save(@NotNull UUID uuid, @NotNull String yaml) throws IOException {
+        append(uuid, yaml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public synchronized boolean delete(@NotNull UUID uuid) {
+        if (!index.containsKey(uuid))
+            return false;
+
+        try {
+            append(uuid, null);
+            return true;
+        } catch (final IOException ex) {
+            Utils.logError(ex);
+            Utils.logError("Failed to delete the config of " + uuid + ".");
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean exists(@NotNull UUID uuid) {
+        return index.containsKey(uuid);
+    }
+
+    /**
+     * Syncs everything written so far to the disk, and compacts the file if more than half of it is unused.
+     */
+    @Override
+    public void flush() {
+        final boolean compact;
+
+        try {
+            synchronized (this) {
+                if (channel == null)
+                    return;
+
+                channel.force(false);
+                compact = garbageBytes >= MIN_COMPACT_GARBAGE && garbageBytes > liveBytes;
+            }
+
+            if (compact)
+                compact();
+        } catch (final IOException ex) {
+            Utils.logError(ex);
+            Utils.logError("Failed to flush player storage '" + path + "'.");
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null)
+            return;
+
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (final IOException ex) {
+            Utils.logError(ex);
+            Utils.logError("Failed to close player storage '" + path + "'.");
+        } finally {
+            channel = null;
+        }
+    }
+
+    /**
+     * Runs {@link #flush()} from an async task every interval.
+     *
+     * @param plugin   The plugin to run the task for.
+     * @param interval How often, in ticks, to flush.
+     * @return The task, cancel it before {@link #close() closing} the storage.
+     */
+    public @NotNull BukkitTask scheduleMaintenance(@NotNull JavaPlugin plugin, long interval) {
+        return plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
+    }
+
+    /**
+     * Rewrites the file with only the latest record of every player.
+     * The new file is written next to the old one and then moved over it.
+     * <p>
+     * The records are copied without holding the lock, so loads and saves go on while the file is compacted.
+     * Only the records saved during the copy and the final move are done while holding it.
+     *
+     * @throws IOException If the file couldn't be rewritten, the old file is kept in that case.
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            final FileChannel source;
+            final Map<UUID, Entry> records;
+            final long copiedEnd;
+
+            synchronized (this) {
+                ensureOpen();
+                source = channel;
+                records = new HashMap<>(index);
+                copiedEnd = end;
+            }
+
+            final Path temp = path.resolveSibling(path.getFileName() + ".compact");
+
+            try (final FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(out, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).flip());
+
+                // Records before copiedEnd are never written to again, so they can be read while saves append after them.
+                final Map<UUID, Entry> compacted = new HashMap<>();
+                long position = HEADER_SIZE;
+
+                for (final Map.Entry<UUID, Entry> record : records.entrySet()) {
+                    final Entry entry = record.getValue();
+                    transferFully(source, entry.position(), entry.size(), out, position);
+
+                    compacted.put(record.getKey(), new Entry(position, entry.length()));
+                    position += entry.size();
+                }
+
+                synchronized (this) {
+                    if (channel != source)
+                        throw new IOException("Player storage '" + path + "' was closed while it was compacted.");
+
+                    // Carry over what was saved during the copy, records and deletions alike.
+                    final long appended = end - copiedEnd;
+                    transferFully(source, copiedEnd, appended, out, position);
+                    replay(out, position, position + appended, compacted);
+                    position += appended;
+
+                    out.force(true);
+                    swap(temp, compacted, position);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Moves the compacted file over the log and starts using it, the caller holds the lock.
+    private void swap(final @NotNull Path temp, final @NotNull Map<UUID, Entry> compacted, final long size) throws IOException {
+        channel.close();
+
+        try {
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException ex) {
+            // Keep using the old file.
+            open();
+            throw ex;
+        }
+
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        index.putAll(compacted);
+        end = size;
+        liveBytes = 0;
+        for (final Entry entry : compacted.values())
+            liveBytes += entry.size();
+        garbageBytes = end - HEADER_SIZE - liveBytes;
+    }
+
+    // Applies the records between two positions of a file, written by this storage, to an index.
+    private static void replay(final @NotNull FileChannel file, long position, final long end, final @NotNull Map<UUID, Entry> target) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+        while (position < end) {
+            header.clear();
+            while (header.hasRemaining()) {
+                if (file.read(header, position + header.position()) < 0)
+                    throw new EOFException("Unexpected end of the compacted file.");
+            }
+
+            final UUID uuid = new UUID(header.getLong(0), header.getLong(Long.BYTES));
+            final int length = header.getInt(Long.BYTES * 2);
+
+            if (length == -1)
+                target.remove(uuid);
+            else
+                target.put(uuid, new Entry(position, length));
+
+            position += RECORD_HEADER_SIZE + Math.max(length, 0);
+        }
+    }
+
+    // Opens the file and builds the index from every record in it.
+    private void open() throws IOException {
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        liveBytes = 0;
+        garbageBytes = 0;
+
+        final long size = channel.size();
+        if (size == 0) {
+            writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).flip());
+            end = HEADER_SIZE;
+            return;
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size < HEADER_SIZE || readFully(header, 0).getInt(0) != MAGIC) {
+            channel.close();
+            channel = null;
+            throw new IOException("'" + path + "' is not a player storage file.");
+        }
+
+        long position = HEADER_SIZE;
+        long damagedFrom = -1;
+        long skipped = 0;
+
+        while (position + RECORD_HEADER_SIZE <= size) {
+            final long next = readRecord(position, size);
+
+            if (next == -1) {
+                // Look for the next intact record one byte at a time, the length of a damaged record can't be trusted.
+                if (damagedFrom == -1)
+                    damagedFrom = position;
+                position++;
+                continue;
+            }
+
+            if (damagedFrom != -1) {
+                // Damage in the middle of the file, only the damaged bytes are skipped.
+                skipped += position - damagedFrom;
+                garbageBytes += position - damagedFrom;
+                damagedFrom = -1;
+            }
+
+            position = next;
+        }
+
+        // No intact record follows, this is a tail that was only partly written.
+        final long tail = size - (damagedFrom == -1 ? position : damagedFrom);
+        if (tail > 0)
+            channel.truncate(size - tail);
+
+        droppedBytes = skipped + tail;
+        if (droppedBytes > 0 && Utils.getInstance() != null)
+            Utils.logWarning("Dropped " + droppedBytes + " bytes of unfinished or corrupt records from '" + path + "'"
+                    + (skipped > 0 ? ", " + skipped + " of them in the middle of the file." : "."));
+
+        end = size - tail;
+    }
+
+    // Reads the record at a position into the index, returns where the next one starts or -1 if this one is damaged.
+    private long readRecord(final long position, final long size) throws IOException {
+        final ByteBuffer header = readFully(ByteBuffer.allocate(RECORD_HEADER_SIZE), position);
+
+        final UUID uuid = new UUID(header.getLong(0), header.getLong(Long.BYTES));
+        final int length = header.getInt(Long.BYTES * 2);
+        final long next = position + RECORD_HEADER_SIZE + Math.max(length, 0);
+
+        // Only part of this record made it to the disk, or the length itself is garbage.
+        if (length < -1 || next > size)
+            return -1;
+
+        final ByteBuffer data = readFully(ByteBuffer.allocate(Math.max(length, 0)), position + RECORD_HEADER_SIZE);
+
+        final CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, CHECKSUM_OFFSET);
+        crc.update(data.array(), 0, data.limit());
+
+        // A torn write, flipped bits, or zeroes the file system filled in.
+        if ((int) crc.getValue() != header.getInt(CHECKSUM_OFFSET))
+            return -1;
+
+        index(uuid, position, length);
+        return next;
+    }
+
+    // Writes a record to the end of the file, null data marks the player as deleted.
+    private void append(final @NotNull UUID uuid, final byte @Nullable [] data) throws IOException {
+        ensureOpen();
+
+        final int length = data == null ? -1 : data.length;
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + Math.max(length, 0));
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putInt(length);
+
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, CHECKSUM_OFFSET);
+        if (data != null)
+            crc.update(data);
+
+        buffer.putInt((int) crc.getValue());
+        if (data != null)
+            buffer.put(data);
+        buffer.flip();
+
+        final long position = end;
+        long written = 0;
+
+        while (buffer.hasRemaining())
+            written += channel.write(buffer, position + written);
+
+        end = position + written;
+        index(uuid, position, length);
+    }
+
+    // Points the index at a record, counting the record it replaces as garbage.
+    private void index(final @NotNull UUID uuid, final long position, final int length) {
+        final Entry previous = length == -1 ? index.remove(uuid) : index.put(uuid, new Entry(position, length));
+
+        if (previous != null) {
+            liveBytes -= previous.size();
+            garbageBytes += previous.size();
+        }
+
+        if (length == -1)
+            garbageBytes += RECORD_HEADER_SIZE;
+        else
+            liveBytes += RECORD_HEADER_SIZE + length;
+    }
+
+    private @NotNull ByteBuffer readFully(final @NotNull ByteBuffer buffer, final long position) throws IOException {
+        final int start = buffer.position();
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0)
+                throw new EOFException("Unexpected end of '" + path + "'.");
+        }
+
+        return buffer;
+    }
+
+    private static void transferFully(final @NotNull FileChannel source, final long position, final long count,
+                                      final @NotNull FileChannel target, final long targetPosition) throws IOException {
+        long copied = 0;
+
+        while (copied < count) {
+            final long transferred = source.transferTo(position + copied, count - copied, target.position(targetPosition + copied));
+            if (transferred <= 0)
+                throw new EOFException("Unexpected end of a player storage file.");
+            copied += transferred;
+        }
+    }
+
+    private static void writeFully(final @NotNull FileChannel target, final @NotNull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            target.write(buffer);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null)
+            throw new IOException("Player storage '" + path + "' is closed.");
+    }
+
+    /**
+     * Where a record starts and how long its YAML is.
+     */
+    private record Entry(long position, int length) {
+        private long size() {
+            return RECORD_HEADER_SIZE + length;
+        }
+    }
+}
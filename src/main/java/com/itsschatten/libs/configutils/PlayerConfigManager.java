@@ -1,58 +1,93 @@
 package com.itsschatten.libs.configutils;
 
 import com.itsschatten.libs.Utils;
+import com.itsschatten.libs.interfaces.IPlayerStorage;
 import lombok.Getter;
 import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PlayerConfigManager {
 
+    /**
+     * Every loaded config, by the owner's UUID.
+     */
+    private static final Map<UUID, PlayerConfigManager> configs = new ConcurrentHashMap<>();
+
+    /**
+     * The policy used to evict configs, null to keep everything loaded.
+     * -- GETTER --
+     * Gets the current cache policy.
+     *
+     * @return The policy, or null if configs are never evicted.
+     */
     @Getter
-    private static final List<PlayerConfigManager> configs = new ArrayList<>();
+    private static volatile CachePolicy cachePolicy;
+
+    /**
+     * The task that evicts configs.
+     */
+    private static BukkitTask evictionTask;
+
+    /**
+     * The folder all configs without their own path are stored in, resolved and created once.
+     */
+    private static volatile File dataFolder;
+
+    /**
+     * The YAML storage in the data folder, created when first used.
+     */
+    private static volatile YamlPlayerStorage defaultStorage;
+
+    /**
+     * Where configs without their own path are stored, null to use the {@link YamlPlayerStorage YAML files} in the data folder.
+     */
+    private static volatile IPlayerStorage storage;
 
     private final UUID u;
     private final String path;
-    private final JavaPlugin plugin = JavaPlugin.getProvidingPlugin(this.getClass());
-    private FileConfiguration fc;
-    private File file;
+    private volatile FileConfiguration fc;
 
-    private PlayerConfigManager(@NotNull Player p) {
-        this.u = p.getUniqueId();
-        this.path = null;
-
-        configs.add(this);
-    }
+    /**
+     * The storage for configs with their own path.
+     */
+    private final YamlPlayerStorage pathStorage;
 
-    private PlayerConfigManager(@NotNull Player p, String path) {
-        this.u = p.getUniqueId();
-        this.path = path;
+    /**
+     * The last time, in milliseconds, this config was looked up.
+     */
+    private volatile long lastAccess = System.currentTimeMillis();
 
-        configs.add(this);
-    }
+    /**
+     * A hash of the YAML as it was last read or written, to tell if there are unsaved changes without keeping a second copy of it.
+     */
+    private volatile long persistedHash;
 
+    /**
+     * The size of the YAML as it was last read or written.
+     */
+    private volatile long persistedSize;
 
     private PlayerConfigManager(UUID u, String path) {
         this.u = u;
         this.path = path;
-
-        configs.add(this);
-    }
-
-    private PlayerConfigManager(UUID u) {
-        this.u = u;
-        this.path = null;
-
-        configs.add(this);
+        this.pathStorage = path == null ? null : new YamlPlayerStorage(new File(path));
     }
 
     /**
@@ -64,19 +99,22 @@ public class PlayerConfigManager {
      * @param p The Player of the config found by getOwner()
      * @return Config for given player.
      */
-    public static @NotNull PlayerConfigManager getConfig(Player p) {
-        for (final PlayerConfigManager c : configs)
-            if (c.getOwnerUUID().equals(p.getUniqueId()))
-                return c;
-        return new PlayerConfigManager(p);
+    public static @NotNull PlayerConfigManager getConfig(@NotNull Player p) {
+        return getConfig(p.getUniqueId());
     }
 
-    public static @NotNull PlayerConfigManager getConfig(Player p, String path) {
-        for (final PlayerConfigManager c : configs)
-            if (c.getOwnerUUID().equals(p.getUniqueId())) {
-                return c;
-            }
-        return new PlayerConfigManager(p, path);
+    /**
+     * Get a config stored in a specific folder.
+     * <p>
+     * If the player's loaded config is stored in another folder, it's saved if it has unsaved changes and replaced
+     * with the config in this folder.
+     *
+     * @param p    The Player of the config found by getOwner()
+     * @param path The folder the config is stored in, or null for the default folder.
+     * @return Config for given player.
+     */
+    public static @NotNull PlayerConfigManager getConfig(@NotNull Player p, String path) {
+        return getConfig(p.getUniqueId(), path);
     }
 
     /**
@@ -88,32 +126,209 @@ public class PlayerConfigManager {
      * @param u The UUID of the player who is the owner of the config
      * @return Config for given UUID
      */
-    public static @NotNull PlayerConfigManager getConfig(UUID u) {
-        for (final PlayerConfigManager c : configs)
-            if (c.getOwnerUUID().equals(u))
-                return c;
-        return new PlayerConfigManager(u);
+    public static @NotNull PlayerConfigManager getConfig(@NotNull UUID u) {
+        return getConfig(u, null);
     }
 
-    public static void removeConfig(final @NotNull Player player) {
-        removeConfig(player.getUniqueId());
+    // Gets the config of a player in a folder, replacing a loaded config that is stored in another folder.
+    private static @NotNull PlayerConfigManager getConfig(final @NotNull UUID u, final @Nullable String path) {
+        while (true) {
+            final PlayerConfigManager existing = configs.computeIfAbsent(u, id -> new PlayerConfigManager(id, path));
+
+            if (Objects.equals(existing.path, path)) {
+                existing.lastAccess = System.currentTimeMillis();
+                return existing;
+            }
+
+            final PlayerConfigManager replacement = new PlayerConfigManager(u, path);
+            if (configs.replace(u, existing, replacement)) {
+                existing.saveIfChanged();
+                return replacement;
+            }
+        }
     }
 
-    public static void removeConfig(final UUID uuid) {
-        PlayerConfigManager config = null;
+    /**
+     * Gets a config only if it's already loaded.
+     *
+     * @param u The UUID of the owner.
+     * @return The config, or null if there isn't one.
+     */
+    public static @Nullable PlayerConfigManager getLoadedConfig(UUID u) {
+        return configs.get(u);
+    }
 
-        for (final PlayerConfigManager c : configs) {
-            if (c.getOwnerUUID().equals(uuid)) {
-                config = c;
-                break;
+    /**
+     * Gets every loaded config.
+     * <p>
+     * This is an unmodifiable copy, use {@link #removeConfig(UUID)} or {@link #discard()} to unload a config.
+     *
+     * @return A copy of all loaded configs.
+     */
+    public static @NotNull List<PlayerConfigManager> getConfigs() {
+        return List.copyOf(configs.values());
+    }
+
+    /**
+     * Sets the policy used to evict configs and starts checking for configs to evict.
+     * Use null to stop evicting configs.
+     *
+     * @param plugin The plugin to run the eviction task for.
+     * @param policy The policy, or null.
+     */
+    public static void setCachePolicy(@NotNull JavaPlugin plugin, @Nullable CachePolicy policy) {
+        if (evictionTask != null) {
+            evictionTask.cancel();
+            evictionTask = null;
+        }
+
+        cachePolicy = policy;
+
+        if (policy != null)
+            evictionTask = Bukkit.getScheduler().runTaskTimer(plugin, PlayerConfigManager::evict, policy.getSweepInterval(), policy.getSweepInterval());
+    }
+
+    /**
+     * Evicts the configs the {@link #getCachePolicy() cache policy} no longer allows to be loaded.
+     * Configs that have unsaved changes are saved before they are dropped, configs of online players are never evicted.
+     */
+    public static void evict() {
+        final CachePolicy policy = cachePolicy;
+        if (policy == null)
+            return;
+
+        final long now = System.currentTimeMillis();
+        final List<PlayerConfigManager> candidates = new ArrayList<>();
+        int count = 0;
+        long bytes = 0;
+
+        for (final PlayerConfigManager config : configs.values()) {
+            if (Bukkit.getPlayer(config.u) != null) {
+                count++;
+                bytes += config.persistedSize;
+                continue;
+            }
+
+            if (policy.isIdle(config.lastAccess, now)) {
+                config.evictNow();
+                continue;
             }
+
+            candidates.add(config);
+            count++;
+            bytes += config.persistedSize;
         }
 
-        if (config != null) {
-            config.discard();
+        if (count <= policy.getMaxEntries() && bytes <= policy.getMaxBytes())
+            return;
+
+        // Least recently used first.
+        candidates.sort(Comparator.comparingLong(config -> config.lastAccess));
+
+        for (final PlayerConfigManager config : candidates) {
+            if (count <= policy.getMaxEntries() && bytes <= policy.getMaxBytes())
+                break;
+
+            config.evictNow();
+            count--;
+            bytes -= config.persistedSize;
         }
     }
 
+    /**
+     * Sets where configs without their own path are stored.
+     * This should be done when the plugin enables, before any configs are loaded.
+     *
+     * @param storage The storage, or null to go back to YAML files in the data folder.
+     */
+    public static void setStorage(@Nullable IPlayerStorage storage) {
+        PlayerConfigManager.storage = storage;
+    }
+
+    /**
+     * Gets where configs without their own path are stored.
+     *
+     * @return The storage, YAML files in the data folder unless {@link #setStorage(IPlayerStorage) changed}.
+     */
+    public static @NotNull IPlayerStorage getStorage() {
+        final IPlayerStorage current = storage;
+        return current != null ? current : getDefaultStorage();
+    }
+
+    /**
+     * Checks if the sharded layout is used for the YAML files in the data folder.
+     *
+     * @return True if configs are stored in sub folders.
+     * @see YamlPlayerStorage#isSharded()
+     */
+    public static boolean isShardedLayout() {
+        return getDefaultStorage().isSharded();
+    }
+
+    /**
+     * Sets if the sharded layout should be used for the YAML files in the data folder,
+     * existing files can be moved with {@link #migrateToShardedLayout()}.
+     *
+     * @param shardedLayout True to store configs in sub folders.
+     * @see YamlPlayerStorage#setSharded(boolean)
+     */
+    public static void setShardedLayout(boolean shardedLayout) {
+        getDefaultStorage().setSharded(shardedLayout);
+    }
+
+    /**
+     * Moves every config in the flat data folder into its shard folder and enables the sharded layout.
+     * <p>
+     * This should be run once when the plugin enables, before any configs are loaded.
+     * Files that already exist in their shard folder are left where they are.
+     *
+     * @return The amount of files that were moved.
+     * @see YamlPlayerStorage#migrateToSharded()
+     */
+    public static int migrateToShardedLayout() {
+        return getDefaultStorage().migrateToSharded();
+    }
+
+    // Resolves the data folder once, creating it if needed.
+    private static @NotNull File resolveDataFolder() {
+        File folder = dataFolder;
+
+        if (folder == null) {
+            final JavaPlugin plugin = JavaPlugin.getProvidingPlugin(PlayerConfigManager.class);
+            folder = new File(plugin.getDataFolder().getParentFile().getPath(), plugin.getName() + File.separator + "data");
+
+            if (!folder.exists())
+                folder.mkdirs();
+
+            dataFolder = folder;
+        }
+
+        return folder;
+    }
+
+    // Gets the YAML storage in the data folder, creating it once.
+    private static @NotNull YamlPlayerStorage getDefaultStorage() {
+        YamlPlayerStorage yaml = defaultStorage;
+
+        if (yaml == null) {
+            synchronized (PlayerConfigManager.class) {
+                yaml = defaultStorage;
+                if (yaml == null)
+                    defaultStorage = yaml = new YamlPlayerStorage(resolveDataFolder());
+            }
+        }
+
+        return yaml;
+    }
+
+    public static void removeConfig(final @NotNull Player player) {
+        removeConfig(player.getUniqueId());
+    }
+
+    public static void removeConfig(final UUID uuid) {
+        configs.remove(uuid);
+    }
+
     /**
      * Gets the owner of the config
      *
@@ -151,7 +366,54 @@ public class PlayerConfigManager {
     }
 
     public final void discard() {
-        configs.remove(this);
+        configs.remove(u, this);
+    }
+
+    /**
+     * Checks if the loaded config was changed since it was last read or saved.
+     *
+     * @return True if there are unsaved changes.
+     */
+    public boolean hasUnsavedChanges() {
+        final FileConfiguration config = fc;
+        return config != null && hash(config.saveToString()) != persistedHash;
+    }
+
+    // Saves unsaved changes in the background and drops this config.
+    private void evictNow() {
+        saveIfChanged();
+        discard();
+    }
+
+    // Saves unsaved changes in the background.
+    private void saveIfChanged() {
+        final FileConfiguration config = fc;
+
+        if (config != null) {
+            final String yaml = config.saveToString();
+            if (hash(yaml) != persistedHash) {
+                storage().saveAsync(u, yaml);
+                markPersisted(yaml);
+            }
+        }
+    }
+
+    // Remembers what was last read or written, so unsaved changes can be told apart.
+    private void markPersisted(final @NotNull String yaml) {
+        persistedHash = hash(yaml);
+        persistedSize = yaml.length();
+    }
+
+    // A 64-bit FNV-1a hash of the YAML, wide enough that a change going unnoticed is not a concern.
+    private static long hash(final @NotNull String yaml) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < yaml.length(); i++) {
+            hash ^= yaml.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
     }
 
     /**
@@ -162,7 +424,7 @@ public class PlayerConfigManager {
      * @return The class that extends JavaPlugin
      */
     public JavaPlugin getInstance() {
-        return plugin;
+        return JavaPlugin.getProvidingPlugin(PlayerConfigManager.class);
     }
 
     /**
@@ -172,7 +434,7 @@ public class PlayerConfigManager {
      * wrong, it returns false
      */
     public boolean delete() {
-        return getFile().delete();
+        return storage().delete(u);
     }
 
     /**
@@ -182,18 +444,7 @@ public class PlayerConfigManager {
      * @return True if it exists and False if it doesn't
      */
     public boolean exists() {
-        if (fc == null || file == null) {
-            File temp;
-            if (path != null)
-                temp = new File(path, getOwnerUUID() + ".yml");
-            else
-                temp = new File(getDataFolder(), getOwnerUUID() + ".yml");
-            if (!temp.exists())
-                return false;
-            else
-                file = temp;
-        }
-        return true;
+        return fc != null || storage().exists(getOwnerUUID());
     }
 
 
@@ -203,33 +454,60 @@ public class PlayerConfigManager {
      * @return The folder as type java.io.File
      */
     public File getDataFolder() {
-        final File dir = plugin.getDataFolder() /*new File(PlayerConfigManager.class.getProtectionDomain().getCodeSource().getLocation().getPath().replaceAll("%20", " "))*/;
-        final File d = new File(dir.getParentFile().getPath(), getInstance().getName() + File.separator + "data");
-        if (!d.exists())
-            d.mkdirs();
-        return d;
+        return resolveDataFolder();
     }
 
     /**
      * Gets the File for the owner. If none exists it will create it.
+     * <p>
+     * Only configs stored as YAML files have a file of their own, see {@link #setStorage(IPlayerStorage)}.
      *
-     * @return The File as type java.io.File
-     */
-    public File getFile() {
-        if (file == null) {
-            if (path != null) file = new File(path, getOwnerUUID() + ".yml");
-            else file = new File(getDataFolder(), getOwnerUUID() + ".yml");
-
-            if (!file.exists())
-                try {
-                    file.createNewFile();
-                } catch (final IOException e) {
-                    Utils.logError(e);
-                }
-        }
+     * @return The File as type java.io.File, or null if the config is stored in another {@link IPlayerStorage storage}.
+     */
+    public @Nullable File getFile() {
+        if (!(storage() instanceof YamlPlayerStorage yaml))
+            return null;
+
+        final File file = yaml.getFile(getOwnerUUID());
+        if (!file.exists())
+            try {
+                file.createNewFile();
+            } catch (final IOException e) {
+                Utils.logError(e);
+            }
         return file;
     }
 
+    // Gets the storage this config is saved to.
+    private @NotNull IPlayerStorage storage() {
+        return pathStorage != null ? pathStorage : getStorage();
+    }
+
+    // Reads the config from the storage, an empty config is used if it couldn't be read.
+    private @NotNull FileConfiguration loadFromStorage() {
+        final YamlConfiguration config = new YamlConfiguration();
+
+        // An empty config saves to an empty string, so it only counts as changed once something is set.
+        String persisted = "";
+
+        try {
+            final String yaml = storage().load(u);
+            if (yaml != null) {
+                config.loadFromString(yaml);
+                // Files are written by saveToString, so unchanged configs save to the same YAML.
+                // A file edited by hand is saved again once, in the format of saveToString.
+                persisted = yaml;
+            }
+        } catch (final IOException | InvalidConfigurationException e) {
+            Utils.logError(e);
+            Utils.logError("Failed to load the config of " + u + ".");
+        }
+
+        markPersisted(persisted);
+
+        return config;
+    }
+
     /**
      * Gets the config for the owner. If none exists it will create it.
      *
@@ -237,25 +515,38 @@ public class PlayerConfigManager {
      * org.bukkit.configuration.file.FileConfiguration
      */
     public FileConfiguration getConfig() {
-        if (fc == null)
-            fc = YamlConfiguration.loadConfiguration(getFile());
-        return fc;
+        lastAccess = System.currentTimeMillis();
+        FileConfiguration config = fc;
+
+        if (config == null) {
+            synchronized (this) {
+                config = fc;
+
+                if (config == null)
+                    fc = config = loadFromStorage();
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Checks if the config has been loaded from the disk already.
+     *
+     * @return True if {@link #getConfig()} won't have to read the file.
+     * @see PlayerConfigPreloader
+     */
+    public boolean isLoaded() {
+        return fc != null;
     }
 
     /**
      * Reloads or "Gets" the file and config
      */
     public void reload() {
-        if (file == null) {
-            if (path != null) file = new File(path, getOwnerUUID() + ".yml");
-            else file = new File(getDataFolder(), getOwnerUUID() + ".yml");
-            if (!file.exists())
-                try {
-                    file.createNewFile();
-                } catch (final IOException e) {
-                    Utils.logError(e);
-                }
-            fc = YamlConfiguration.loadConfiguration(file);
+        if (fc == null) {
+            synchronized (this) {
+                fc = loadFromStorage();
+            }
             Utils.log("Player Config for player " + getOwner().getDisplayName() + " has been 'reloaded'");
         }
     }
@@ -273,10 +564,23 @@ public class PlayerConfigManager {
      */
     public void saveConfig() {
         try {
-            getConfig().save(getFile());
+            final String yaml = getConfig().saveToString();
+            storage().save(u, yaml);
+            markPersisted(yaml);
         } catch (final IOException e) {
             Utils.logError(e);
         }
     }
+
+    /**
+     * Saves the config without blocking, if the storage supports it. The YAML is still created on the calling thread.
+     *
+     * @see IPlayerStorage#saveAsync(UUID, String)
+     */
+    public void saveConfigAsync() {
+        final String yaml = getConfig().saveToString();
+        storage().saveAsync(u, yaml);
+        markPersisted(yaml);
+    }
 }
 
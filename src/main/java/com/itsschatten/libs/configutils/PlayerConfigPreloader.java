@@ -0,0 +1,134 @@
+package com.itsschatten.libs.configutils;
+
+import com.itsschatten.libs.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads a player's {@link PlayerConfigManager config} while they are logging in, off the main thread.
+ * <p>
+ * Once {@link #register(JavaPlugin) registered}, configs are loaded during the {@link AsyncPlayerPreLoginEvent},
+ * so by the time the player joins {@link PlayerConfigManager#getConfig()} no longer has to read the file on the main thread.
+ */
+public final class PlayerConfigPreloader implements Listener {
+
+    /**
+     * The loads started during pre login that the player hasn't joined for yet.
+     */
+    private static final Map<UUID, Pending> PENDING = new ConcurrentHashMap<>();
+
+    /**
+     * How long, in milliseconds, a load is remembered for a player that doesn't join.
+     * Players that are disconnected between logging in and joining fire no event that says so.
+     */
+    private static final long PENDING_TIMEOUT = 60_000L;
+
+    private static boolean registered;
+
+    private PlayerConfigPreloader() {
+    }
+
+    /**
+     * Registers the listeners that preload configs when players log in. Does nothing if already registered.
+     *
+     * @param plugin The plugin to register the listeners for.
+     */
+    public static void register(@NotNull JavaPlugin plugin) {
+        if (registered)
+            return;
+
+        Bukkit.getPluginManager().registerEvents(new PlayerConfigPreloader(), plugin);
+        registered = true;
+    }
+
+    /**
+     * Loads a player's config without blocking the main thread.
+     * <p>
+     * If called from the main thread the file is read in an async task, otherwise it's read on the calling thread
+     * and the returned future is already complete.
+     *
+     * @param uuid The UUID of the owner.
+     * @return A future completed with the loaded config.
+     */
+    public static @NotNull CompletableFuture<PlayerConfigManager> preload(@NotNull UUID uuid) {
+        final PlayerConfigManager config = PlayerConfigManager.getConfig(uuid);
+
+        if (config.isLoaded())
+            return CompletableFuture.completedFuture(config);
+
+        final CompletableFuture<PlayerConfigManager> future = new CompletableFuture<>();
+        final Runnable load = () -> {
+            try {
+                config.getConfig();
+                future.complete(config);
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+
+        if (Bukkit.isPrimaryThread())
+            Bukkit.getScheduler().runTaskAsynchronously(config.getInstance(), load);
+        else
+            load.run();
+
+        return future;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(@NotNull AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED)
+            return;
+
+        final long now = System.currentTimeMillis();
+        PENDING.values().removeIf(pending -> now - pending.startedAt > PENDING_TIMEOUT);
+
+        PENDING.put(event.getUniqueId(), new Pending(preload(event.getUniqueId()), now));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(@NotNull PlayerLoginEvent event) {
+        // The player won't join, no need to keep their config around.
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED && PENDING.remove(event.getPlayer().getUniqueId()) != null)
+            PlayerConfigManager.removeConfig(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(@NotNull PlayerJoinEvent event) {
+        final Pending pending = PENDING.remove(event.getPlayer().getUniqueId());
+        if (pending == null)
+            return;
+
+        // Never wait here, a load that isn't done yet keeps going and the config is read on first use if it failed.
+        final String name = event.getPlayer().getName();
+        pending.future.whenComplete((config, error) -> {
+            if (error != null) {
+                Utils.logError(error);
+                Utils.logError("Failed to preload the config for " + name + ", it will be loaded on first use.");
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(@NotNull PlayerQuitEvent event) {
+        PENDING.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * A load started during pre login, and when it was started in milliseconds.
+     */
+    private record Pending(CompletableFuture<PlayerConfigManager> future, long startedAt) {
+    }
+}
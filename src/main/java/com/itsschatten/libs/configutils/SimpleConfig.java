@@ -4,9 +4,14 @@ import com.itsschatten.libs.Utils;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.IllegalPluginAccessException;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -18,6 +23,8 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -63,6 +70,75 @@ public class SimpleConfig extends YamlConfiguration {
     @Setter
     private String pathPrefix;
 
+    /**
+     * How deep the current thread is inside this configuration's own path lookups.
+     * <p>
+     * Only the outermost call (depth 0) gets the {@link #pathPrefix}, the nested calls
+     * the parent class makes while walking a path (through {@link #getConfigurationSection(String)} and the like)
+     * are resolved as they are. This replaces the old stack trace inspection, which was far too expensive for hot reads.
+     */
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * If enabled, a flat {@link ConfigSnapshot} of the file is compiled every time it's loaded,
+     * and {@link #getString(String)}, {@link #getInt(String)}, {@link #getLong(String)}, {@link #getDouble(String)}
+     * and {@link #getBoolean(String)} are answered from it with a single lookup.
+     * <p>
+     * The snapshot is compiled when the file is loaded, reloaded or {@link #flush() flushed}, {@link #set(String, Object)} and
+     * {@link #createSection(String)} only update the paths they change. Writes to a section obtained from this config don't go
+     * through this class, call {@link #invalidateSnapshot()} after them.
+     * -- GETTER --
+     * Checks if snapshot mode is enabled.
+     *
+     * @return True if reads use the snapshot.
+     */
+    @Getter
+    private boolean snapshotMode;
+
+    /**
+     * The current snapshot, swapped out in one go whenever it's compiled.
+     */
+    private volatile ConfigSnapshot snapshot;
+
+    /**
+     * If the configuration may have changed since the snapshot was compiled.
+     */
+    private volatile boolean snapshotStale;
+
+    /**
+     * How long, in ticks, writes are collected before they are all saved at once.
+     * <p>
+     * When this is zero or more, {@link #write(String, Object)} (and filling in missing defaults) only changes the value in memory and marks it as dirty,
+     * the file is then saved once after the delay, or whenever {@link #flush()} is called. A negative value, the default, saves on every write.
+     * Configurations with pending writes are also saved by {@link ConfigPersistence#flushAll()}, so nothing is lost when the plugin is disabled.
+     * -- GETTER --
+     * Gets the write delay in ticks.
+     *
+     * @return The delay, negative if writes are saved right away.
+     * -- SETTER --
+     * Sets the write delay in ticks, use a negative value to save on every write.
+     *
+     * @param writeDelay The delay.
+     */
+    @Getter
+    @Setter
+    private long writeDelay = -1;
+
+    /**
+     * The paths that have been written but not saved yet, also used as the lock for {@link #flushTask}.
+     */
+    private final Set<String> dirtyPaths = new HashSet<>();
+
+    /**
+     * The scheduled flush, if any.
+     */
+    private BukkitTask flushTask;
+
+    /**
+     * If one of the pending writes holds a value that is stored differently once loaded from the file.
+     */
+    private boolean reloadOnFlush;
+
     /**
      * Makes a new SimpleConfig instance that will manage one configuration file.
      * <p>
@@ -113,6 +189,38 @@ public class SimpleConfig extends YamlConfiguration {
         this.editHeader = editHeader;
     }
 
+    /**
+     * Enables or disables snapshot mode, see {@link #snapshotMode}.
+     *
+     * @param snapshotMode True to compile the loaded file into a {@link ConfigSnapshot}.
+     */
+    public void setSnapshotMode(boolean snapshotMode) {
+        this.snapshotMode = snapshotMode;
+        this.snapshot = null;
+        this.snapshotStale = false;
+        refreshSnapshot();
+    }
+
+    /**
+     * Gets the compiled snapshot, compiling it again first if the configuration was changed.
+     *
+     * @return The snapshot, or null if snapshot mode is disabled.
+     */
+    public ConfigSnapshot getSnapshot() {
+        if (snapshotMode && snapshotStale)
+            refreshSnapshot();
+
+        return snapshot;
+    }
+
+    /**
+     * Marks the snapshot as stale, so it's compiled again on the next read.
+     * Only needed after writing to a section obtained from this config, other writes update the snapshot themselves.
+     */
+    public void invalidateSnapshot() {
+        snapshotStale = true;
+    }
+
     /**
      * Saves the file on the disk and loads it again.
      */
@@ -124,6 +232,8 @@ public class SimpleConfig extends YamlConfiguration {
     /**
      * Writes a key with a value to your file.
      * Example: write("weather.disable", true)
+     * <p>
+     * If a {@link #setWriteDelay(long) write delay} is set the value is only saved once the delay is over or {@link #flush()} is called.
      *
      * @param path,  the path, use '.' to split sections
      * @param value, the value can be a primitive, a String, HashMap or a Collection (List, or a Set)
@@ -131,21 +241,112 @@ public class SimpleConfig extends YamlConfiguration {
     public void write(String path, Object value) {
         set(path, value);
 
-        reloadConfig();
+        if (writeDelay >= 0) {
+            markDirty(path, value);
+            return;
+        }
+
+        if (isStoredAsIs(value)) {
+            // What's in memory is exactly what would be read back, no need to load the file again.
+            saveConfig();
+        } else
+            reloadConfig();
+    }
+
+    /**
+     * Saves every pending write at once, does nothing if there are none.
+     *
+     * @see #setWriteDelay(long)
+     */
+    public void flush() {
+        flush(false);
+    }
+
+    // Saves every pending write, the scheduled flush saves from the background unless the file has to be loaded again.
+    private void flush(final boolean async) {
+        final boolean reload;
+
+        synchronized (dirtyPaths) {
+            if (flushTask != null) {
+                flushTask.cancel();
+                flushTask = null;
+            }
+
+            if (dirtyPaths.isEmpty())
+                return;
+
+            dirtyPaths.clear();
+            ConfigPersistence.untrack(this);
+            reload = reloadOnFlush;
+            reloadOnFlush = false;
+        }
+
+        if (reload)
+            reloadConfig();
+        else {
+            if (async) saveConfigAsync();
+            else saveConfig();
+            refreshSnapshot();
+        }
+    }
+
+    /**
+     * Checks if there are writes that haven't been saved yet.
+     *
+     * @return True if {@link #flush()} would save the file.
+     */
+    public boolean isDirty() {
+        synchronized (dirtyPaths) {
+            return !dirtyPaths.isEmpty();
+        }
+    }
+
+    // Marks a path as dirty and schedules a flush if there isn't one already.
+    private void markDirty(String path, Object value) {
+        synchronized (dirtyPaths) {
+            dirtyPaths.add(path);
+            ConfigPersistence.track(this);
+
+            if (!isStoredAsIs(value))
+                reloadOnFlush = true;
+
+            if (flushTask != null)
+                return;
+
+            try {
+                flushTask = Bukkit.getScheduler().runTaskLater(Utils.getInstance(), () -> flush(true), writeDelay);
+                return;
+            } catch (final IllegalPluginAccessException ignored) {
+                // The plugin is disabled, save right away instead.
+            }
+        }
+
+        flush();
+    }
+
+    // Checks if a value is read back from the file exactly as it is in memory.
+    // Other values (sets, maps, floats...) are converted when loaded, so those still need a reload after saving.
+    private static boolean isStoredAsIs(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Double)
+            return true;
+
+        if (value instanceof List<?> list) {
+            for (final Object element : list)
+                if (!isStoredAsIs(element))
+                    return false;
+
+            return true;
+        }
+
+        return false;
     }
 
     // Saves the file on the disk and copies the {@link #editHeader} if exists.
     public void saveConfig() {
         try {
 
-            // Copy the header
-            if (editHeader != null) {
-                options().setHeader(Collections.singletonList(StringUtils.join(editHeader, System.lineSeparator())));
-                options().copyHeader(true);
-            }
-
-            // Call parent method for saving
-            super.save(file);
+            // Write the file through the persistence layer, so it's replaced atomically
+            ConfigPersistence.write(file, saveToStringWithHeader());
 
         } catch (final IOException ex) {
             Utils.logError(ex);
@@ -153,12 +354,45 @@ public class SimpleConfig extends YamlConfiguration {
         }
     }
 
+    /**
+     * Saves the file on the disk from a background thread.
+     * <p>
+     * The contents are converted to YAML on the calling thread, only the disk access happens in the background.
+     * Saves that are queued before the previous one was written are merged into one.
+     *
+     * @see ConfigPersistence#flushAll()
+     */
+    public void saveConfigAsync() {
+        ConfigPersistence.writeAsync(file, saveToStringWithHeader());
+    }
+
+    // Copies the header, if it exists, and converts the configuration to YAML
+    private @NotNull String saveToStringWithHeader() {
+        if (editHeader != null) {
+            options().setHeader(Collections.singletonList(StringUtils.join(editHeader, System.lineSeparator())));
+            options().copyHeader(true);
+        }
+
+        return saveToString();
+    }
+
     // Loads the configuration from the disk
     private void loadConfig() {
         try {
 
-            // Call parent method for loading
-            super.load(file);
+            // Make sure a queued save isn't still on its way to the disk
+            ConfigPersistence.flush(file);
+
+            // Call parent method for loading, keys read from the disk are never prefixed
+            final int[] d = depth.get();
+            d[0]++;
+            try {
+                super.load(file);
+            } finally {
+                d[0]--;
+            }
+
+            refreshSnapshot();
 
         } catch (final Throwable t) {
             Utils.logError(t);
@@ -166,6 +400,39 @@ public class SimpleConfig extends YamlConfiguration {
         }
     }
 
+    // Compiles a new snapshot of what's in memory, if snapshot mode is enabled.
+    private void refreshSnapshot() {
+        if (!snapshotMode)
+            return;
+
+        // Cleared first, so a write while compiling marks the new snapshot as stale again.
+        snapshotStale = false;
+
+        final int[] d = depth.get();
+        d[0]++;
+        try {
+            snapshot = ConfigSnapshot.of(this);
+        } finally {
+            d[0]--;
+        }
+    }
+
+    // Updates the paths a write changed in the snapshot, instead of compiling all of it again.
+    private void updateSnapshot(final @NotNull String path, final @Nullable Object value, final boolean replacedSection) {
+        final ConfigSnapshot s = snapshot;
+        if (s == null)
+            return;
+
+        if (replacedSection)
+            s.removeBelow(path);
+
+        // Writing below a value replaces that value with a section.
+        for (int i = path.indexOf('.'); i != -1; i = path.indexOf('.', i + 1))
+            s.put(path.substring(0, i), null);
+
+        s.put(path, value instanceof ConfigurationSection || value instanceof Map ? null : value);
+    }
+
 
     /**
      * Gets an unspecified value from your file, so you must cast it to your desired value (example: (boolean) get("disable.this.feature", true))
@@ -187,26 +454,157 @@ public class SimpleConfig extends YamlConfiguration {
             }
         }
 
-        // hacky workaround: prevent infinite loop due to how get works in the parent class
-        final String m = new Throwable().getStackTrace()[1].getMethodName();
+        final int[] d = depth.get();
+        final int level = d[0];
+        final String resolved = resolvePath(path, level);
+
+        d[0]++;
+        try {
+            return super.get(resolved, null);
+        } finally {
+            d[0]--;
+        }
+    }
+
+    /**
+     * Gets a value without applying the {@link #pathPrefix}, the parent class routes this through {@link #get(String, Object)}.
+     */
+    @Override
+    public Object get(@NotNull String path) {
+        final int[] d = depth.get();
+
+        d[0]++;
+        try {
+            return super.get(path);
+        } finally {
+            d[0]--;
+        }
+    }
+
+    /**
+     * Gets a section without applying the {@link #pathPrefix}, this is also used by the parent class to walk through paths.
+     */
+    @Override
+    public ConfigurationSection getConfigurationSection(@NotNull String path) {
+        final int[] d = depth.get();
+
+        d[0]++;
+        try {
+            return super.getConfigurationSection(path);
+        } finally {
+            d[0]--;
+        }
+    }
+
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        final boolean outermost = depth.get()[0] == 0;
+        final ConfigurationSection section = super.createSection(path);
+
+        // The parent class only creates sections while walking a path where there was none, so there is nothing below them.
+        updateSnapshot(path, null, outermost);
+        return section;
+    }
+
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path, @NotNull Map<?, ?> map) {
+        final ConfigurationSection section = super.createSection(path, map);
+        // The values of the map are read from the section until the snapshot is compiled again.
+        updateSnapshot(path, null, true);
+        return section;
+    }
+
+    @Override
+    public String getString(@NotNull String path) {
+        final ConfigSnapshot s = currentSnapshot();
+
+        if (s != null) {
+            final String value = s.getString(resolvePath(path, depth.get()[0]));
+            if (value != null) return value;
+        }
+
+        return super.getString(path);
+    }
+
+    @Override
+    public int getInt(@NotNull String path) {
+        final ConfigSnapshot s = currentSnapshot();
+
+        if (s != null) {
+            final String resolved = resolvePath(path, depth.get()[0]);
+            if (s.isNumber(resolved)) return s.getInt(resolved, 0);
+        }
+
+        return super.getInt(path);
+    }
+
+    @Override
+    public long getLong(@NotNull String path) {
+        final ConfigSnapshot s = currentSnapshot();
+
+        if (s != null) {
+            final String resolved = resolvePath(path, depth.get()[0]);
+            if (s.isNumber(resolved)) return s.getLong(resolved, 0L);
+        }
+
+        return super.getLong(path);
+    }
+
+    @Override
+    public double getDouble(@NotNull String path) {
+        final ConfigSnapshot s = currentSnapshot();
+
+        if (s != null) {
+            final String resolved = resolvePath(path, depth.get()[0]);
+            if (s.isNumber(resolved)) return s.getDouble(resolved, 0D);
+        }
+
+        return super.getDouble(path);
+    }
+
+    @Override
+    public boolean getBoolean(@NotNull String path) {
+        final ConfigSnapshot s = currentSnapshot();
 
-        // Add path prefix, but only when the default file doesn't exist
-        if (defaults == null && pathPrefix != null && !m.equals("getConfigurationSection") && !m.equals("get"))
-            path = pathPrefix + "." + path;
+        if (s != null) {
+            final String resolved = resolvePath(path, depth.get()[0]);
+            if (s.isBoolean(resolved)) return s.getBoolean(resolved, false);
+        }
 
-        return super.get(path, null);
+        return super.getBoolean(path);
     }
 
     @Override
     public void set(@NotNull String path, Object value) {
-        // hacky workaround: prevent infinite loop due to how get works in the parent class
-        final String m = new Throwable().getStackTrace()[1].getMethodName();
+        final int[] d = depth.get();
+        final String resolved = resolvePath(path, d[0]);
+        final boolean replacedSection;
+
+        d[0]++;
+        try {
+            replacedSection = snapshot != null && super.get(resolved, null) instanceof ConfigurationSection;
+            super.set(resolved, value);
+        } finally {
+            d[0]--;
+        }
+
+        updateSnapshot(resolved, value, replacedSection);
+    }
+
+    // The snapshot to answer reads from, compiled again if it's stale. Null if snapshot mode is off.
+    private ConfigSnapshot currentSnapshot() {
+        if (snapshotStale && snapshotMode)
+            refreshSnapshot();
+
+        return snapshot;
+    }
 
-        // Add path prefix, but only when the default file doesn't exist
-        if (defaults == null && pathPrefix != null && !m.equals("getConfigurationSection") && !m.equals("get"))
-            path = pathPrefix + "." + path;
+    // Add path prefix, but only for the outermost call and when the default file doesn't exist
+    private String resolvePath(final String path, final int level) {
+        if (level == 0 && defaults == null && pathPrefix != null)
+            return pathPrefix + "." + path;
 
-        super.set(path, value);
+        return path;
     }
 
     // Extract the file from your jar to the plugins/YourPlugin folder.
@@ -0,0 +1,199 @@
+package com.itsschatten.libs.configutils;
+
+import com.itsschatten.libs.Utils;
+import com.itsschatten.libs.interfaces.IPlayerStorage;
+import lombok.Getter;
+import lombok.Setter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Stores every player in their own YAML file, named after their UUID. This is the default storage.
+ * <p>
+ * Files are written through {@link ConfigPersistence}, so they are always replaced atomically.
+ */
+public final class YamlPlayerStorage implements IPlayerStorage {
+
+    /**
+     * The folder the files are stored in.
+     * -- GETTER --
+     * Gets the folder the files are stored in.
+     *
+     * @return The folder.
+     */
+    @Getter
+    private final File folder;
+
+    /**
+     * If files are spread over sub folders using the start of their UUID, for example data/ab/cd/abcd1234-....yml,
+     * instead of all being in the folder itself. Keeps folders small when there are a lot of players.
+     * -- GETTER --
+     * Checks if the sharded layout is used.
+     *
+     * @return True if files are stored in sub folders.
+     * -- SETTER --
+     * Sets if the sharded layout should be used, existing files can be moved with {@link #migrateToSharded()}.
+     *
+     * @param sharded True to store files in sub folders.
+     */
+    @Getter
+    @Setter
+    private volatile boolean sharded;
+
+    /**
+     * Creates a storage for a folder, creating the folder if it doesn't exist.
+     *
+     * @param folder The folder to store files in.
+     */
+    public YamlPlayerStorage(@NotNull File folder) {
+        this.folder = folder;
+
+        if (!folder.exists())
+            folder.mkdirs();
+    }
+
+    /**
+     * Gets the file of a player, it may not exist yet.
+     *
+     * @param uuid The UUID of the player.
+     * @return The file.
+     */
+    public @NotNull File getFile(@NotNull UUID uuid) {
+        return new File(sharded ? getShardFolder(uuid) : folder, uuid + ".yml");
+    }
+
+    @Override
+    public @Nullable String load(@NotNull UUID uuid) throws IOException {
+        File file = getFile(uuid);
+
+        // Make sure a queued save isn't still on its way to the disk
+        ConfigPersistence.flush(file);
+
+        if (!file.exists()) {
+            // A file that couldn't be moved into its shard folder, it's moved the next time it's saved.
+            file = getFlatFile(uuid);
+            if (!sharded || !file.exists())
+                return null;
+        }
+
+        return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void save(@NotNull UUID uuid, @NotNull String yaml) throws IOException {
+        ConfigPersistence.write(getFile(uuid), yaml);
+
+        if (sharded)
+            Files.deleteIfExists(getFlatFile(uuid).toPath());
+    }
+
+    @Override
+    public void saveAsync(@NotNull UUID uuid, @NotNull String yaml) {
+        if (!sharded) {
+            ConfigPersistence.writeAsync(getFile(uuid), yaml);
+            return;
+        }
+
+        // The file in the flat folder is out of date once the sharded one is written.
+        ConfigPersistence.writeAsync(getFile(uuid), yaml, () -> {
+            try {
+                Files.deleteIfExists(getFlatFile(uuid).toPath());
+            } catch (final IOException ex) {
+                Utils.logError(ex);
+                Utils.logError("Failed to delete the old config of " + uuid + " from the flat folder.");
+            }
+        });
+    }
+
+    @Override
+    public boolean delete(@NotNull UUID uuid) {
+        final File file = getFile(uuid);
+
+        ConfigPersistence.discard(file);
+        final boolean deleted = file.delete();
+        return sharded ? getFlatFile(uuid).delete() || deleted : deleted;
+    }
+
+    @Override
+    public boolean exists(@NotNull UUID uuid) {
+        return getFile(uuid).exists() || ConfigPersistence.isPending(getFile(uuid)) || (sharded && getFlatFile(uuid).exists());
+    }
+
+    @Override
+    public void flush() {
+        ConfigPersistence.flushAll();
+    }
+
+    /**
+     * Moves every file in the flat folder into its shard folder and enables the {@link #sharded sharded layout}.
+     * <p>
+     * This should be run once when the plugin enables, before any configs are loaded.
+     * Files that already exist in their shard folder are left where they are. A file that can't be moved is logged and
+     * skipped, it's still read from the flat folder and moved the next time it's saved.
+     *
+     * @return The amount of files that were moved.
+     */
+    public int migrateToSharded() {
+        int moved = 0;
+        int failed = 0;
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath(), "*.yml")) {
+            for (final Path source : stream) {
+                final String name = source.getFileName().toString();
+                final UUID uuid;
+
+                try {
+                    uuid = UUID.fromString(name.substring(0, name.length() - ".yml".length()));
+                } catch (final IllegalArgumentException ex) {
+                    continue;
+                }
+
+                final Path target = getShardFolder(uuid).toPath().resolve(name);
+                if (Files.exists(target)) {
+                    Utils.logWarning("Not moving " + name + " into its shard folder, it already exists there.");
+                    continue;
+                }
+
+                try {
+                    Files.createDirectories(target.getParent());
+                    Files.move(source, target);
+                    moved++;
+                } catch (final IOException ex) {
+                    Utils.logError(ex);
+                    Utils.logError("Failed to move " + name + " into its shard folder.");
+                    failed++;
+                }
+            }
+        } catch (final IOException ex) {
+            Utils.logError(ex);
+            Utils.logError("Failed to list the player configs to move into shard folders.");
+            failed++;
+        }
+
+        // Files that were moved are only found with the sharded layout, even if others failed.
+        if (moved > 0 || failed == 0)
+            sharded = true;
+
+        Utils.log("Moved " + moved + " player configs into shard folders" + (failed > 0 ? ", " + failed + " could not be moved." : "."));
+        return moved;
+    }
+
+    // Gets the file of a player in the flat layout.
+    private @NotNull File getFlatFile(final @NotNull UUID uuid) {
+        return new File(folder, uuid + ".yml");
+    }
+
+    // Gets the shard folder of a UUID, it's only created once a file is written to it.
+    private @NotNull File getShardFolder(final @NotNull UUID uuid) {
+        final String id = uuid.toString();
+        return new File(folder, id.substring(0, 2) + File.separator + id.substring(2, 4));
+    }
+}
@@ -0,0 +1,55 @@
+package com.itsschatten.libs.interfaces;
+
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A type of argument in a {@link com.itsschatten.libs.commandutils.CommandTree command tree}.
+ *
+ * @param <T> The type of value the argument is parsed into.
+ * @see com.itsschatten.libs.commandutils.ArgumentTypes
+ */
+public interface IArgumentType<T> {
+
+    /**
+     * Parses an argument.
+     *
+     * @param sender Who executed the command.
+     * @param input  The argument, or every remaining argument joined by spaces if this type is {@link #isGreedy() greedy}.
+     * @return The value, or null if the input isn't valid for this type.
+     */
+    @Nullable T parse(@NotNull CommandSender sender, @NotNull String input);
+
+    /**
+     * Gets the suggestions for an argument that is being typed.
+     *
+     * @param sender Who is typing the command.
+     * @param input  What has been typed of the argument so far.
+     * @return The suggestions that start with the input.
+     */
+    default @NotNull List<String> complete(@NotNull CommandSender sender, @NotNull String input) {
+        return List.of();
+    }
+
+    /**
+     * Gets the message sent when an input can't be parsed.
+     *
+     * @param input The input.
+     * @return The message.
+     */
+    default @NotNull String getErrorMessage(@NotNull String input) {
+        return "&cInvalid argument '" + input + "'.";
+    }
+
+    /**
+     * If this argument takes every remaining argument, it must be the last argument of a command.
+     *
+     * @return True if this type is greedy.
+     */
+    default boolean isGreedy() {
+        return false;
+    }
+}
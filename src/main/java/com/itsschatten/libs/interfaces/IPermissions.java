@@ -1,5 +1,7 @@
 package com.itsschatten.libs.interfaces;
 
+import com.itsschatten.libs.PermissionNode;
+
 public interface IPermissions {
 
     /**
@@ -9,4 +11,14 @@ public interface IPermissions {
      */
     String getPermission();
 
+    /**
+     * The interned node of {@link #getPermission()}, used by the {@link com.itsschatten.libs.PermissionCache}.
+     * Enums may store the node in a field and return that instead.
+     *
+     * @return The node.
+     */
+    default PermissionNode getNode() {
+        return PermissionNode.of(getPermission());
+    }
+
 }
@@ -0,0 +1,78 @@
+package com.itsschatten.libs.interfaces;
+
+import com.itsschatten.libs.Utils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Where {@link com.itsschatten.libs.configutils.PlayerConfigManager player configs} are stored.
+ * <p>
+ * Configs are handed over as YAML text, a storage only has to keep that text around by UUID.
+ */
+public interface IPlayerStorage {
+
+    /**
+     * Loads the YAML of a player.
+     *
+     * @param uuid The UUID of the player.
+     * @return The YAML, or null if nothing is stored for this player.
+     * @throws IOException If the data couldn't be read.
+     */
+    @Nullable String load(@NotNull UUID uuid) throws IOException;
+
+    /**
+     * Stores the YAML of a player, replacing what was stored before.
+     *
+     * @param uuid The UUID of the player.
+     * @param yaml The YAML to store.
+     * @throws IOException If the data couldn't be written.
+     */
+    void save(@NotNull UUID uuid, @NotNull String yaml) throws IOException;
+
+    /**
+     * Stores the YAML of a player without blocking the calling thread, if the storage supports it.
+     * Errors are logged instead of thrown.
+     *
+     * @param uuid The UUID of the player.
+     * @param yaml The YAML to store.
+     */
+    default void saveAsync(@NotNull UUID uuid, @NotNull String yaml) {
+        try {
+            save(uuid, yaml);
+        } catch (final IOException ex) {
+            Utils.logError(ex);
+            Utils.logError("Failed to save the config of " + uuid + ".");
+        }
+    }
+
+    /**
+     * Removes everything stored for a player.
+     *
+     * @param uuid The UUID of the player.
+     * @return True if something was removed.
+     */
+    boolean delete(@NotNull UUID uuid);
+
+    /**
+     * Checks if anything is stored for a player.
+     *
+     * @param uuid The UUID of the player.
+     * @return True if there is.
+     */
+    boolean exists(@NotNull UUID uuid);
+
+    /**
+     * Makes sure everything saved so far is on the disk.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Flushes and releases anything the storage holds open, called when the plugin disables.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,23 @@
+package com.itsschatten.libs.interfaces;
+
+import com.itsschatten.libs.commandutils.PrefixIndex;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Where the tab completions of an argument come from.
+ *
+ * @see com.itsschatten.libs.commandutils.Suggestions
+ */
+@FunctionalInterface
+public interface ISuggestionSource {
+
+    /**
+     * Gets the suggestions for someone, this is called on the main thread while they type so it must be quick.
+     *
+     * @param sender Who is typing.
+     * @return The suggestions.
+     */
+    @NotNull PrefixIndex getIndex(@NotNull CommandSender sender);
+
+}
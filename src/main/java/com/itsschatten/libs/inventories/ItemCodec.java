@@ -0,0 +1,469 @@
+package com.itsschatten.libs.inventories;
+
+import com.itsschatten.libs.Utils;
+import lombok.experimental.UtilityClass;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compact codec for {@link ItemStack} arrays, an alternative to {@link Utils#serializeArray(ItemStack[])}.
+ * <p>
+ * Items are written from their {@link ItemStack#serialize() serialized} maps into a small, length prefixed binary format instead of
+ * through Java object serialization, optionally compressed, and then encoded with Base64 without line breaks.
+ * Encoded strings start with {@link #PREFIX}, anything else given to {@link #decode(String)} is read with the old format,
+ * so existing data keeps loading.
+ */
+@UtilityClass
+public class ItemCodec {
+
+    /**
+     * Starts every string written by this codec. ':' is not part of the Base64 alphabet, so old data never starts with it.
+     */
+    public static final String PREFIX = "SL1:";
+
+    /**
+     * Payloads smaller than this, in bytes, are not worth compressing.
+     */
+    private static final int COMPRESSION_THRESHOLD = 256;
+
+    private static final int FLAG_COMPRESSED = 1;
+
+    /**
+     * The most bytes compressed data may inflate to, so corrupt or hostile data can't use up the memory.
+     */
+    private static final int MAX_INFLATED_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * How deep lists and maps may be nested in decoded data.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    // Value tags
+    private static final byte NULL = 0, STRING = 1, INT = 2, LONG = 3, DOUBLE = 4, FLOAT = 5, TRUE = 6, FALSE = 7,
+            SHORT = 8, BYTE = 9, LIST = 10, MAP = 11, SERIALIZABLE = 12;
+
+    /**
+     * Buffers reused by each thread, so encoding doesn't allocate new ones for every call.
+     */
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * Encodes items, compressing them if that makes them smaller.
+     *
+     * @param items The items to encode, may contain null.
+     * @return The encoded string.
+     * @throws IllegalArgumentException If an item contains a value that can't be encoded.
+     * @see #decode(String)
+     */
+    public static @NotNull String encode(@Nullable ItemStack @NotNull [] items) {
+        return encode(items, true);
+    }
+
+    /**
+     * Encodes items.
+     *
+     * @param items    The items to encode, may contain null.
+     * @param compress If the data may be compressed, it's only compressed if that actually makes it smaller.
+     * @return The encoded string.
+     * @throws IllegalArgumentException If an item contains a value that can't be encoded.
+     * @see #decode(String)
+     */
+    public static @NotNull String encode(@Nullable ItemStack @NotNull [] items, boolean compress) {
+        final Buffers buffers = BUFFERS.get();
+        final Output out = buffers.output.reset();
+        final Output item = buffers.item;
+
+        out.writeVarInt(items.length);
+
+        for (int i = 0; i < items.length; i++) {
+            item.reset();
+
+            try {
+                writeValue(item, items[i]);
+            } catch (final IOException | RuntimeException ex) {
+                // Storing null would delete the item on the next save, so nothing is stored.
+                throw new IllegalArgumentException("Failed to encode the item in slot " + i + ": " + items[i], ex);
+            }
+
+            out.write(item.bytes, 0, item.size);
+        }
+
+        byte[] payload = out.bytes;
+        int length = out.size;
+        int flags = 0;
+
+        if (compress && length >= COMPRESSION_THRESHOLD) {
+            final Output compressed = buffers.compressed.reset();
+            final Deflater deflater = buffers.deflater;
+
+            deflater.reset();
+            deflater.setInput(payload, 0, length);
+            deflater.finish();
+
+            while (!deflater.finished()) {
+                compressed.ensureCapacity(compressed.size + 512);
+                compressed.size += deflater.deflate(compressed.bytes, compressed.size, compressed.bytes.length - compressed.size);
+            }
+
+            if (compressed.size < length) {
+                payload = compressed.bytes;
+                length = compressed.size;
+                flags |= FLAG_COMPRESSED;
+            }
+        }
+
+        final byte[] framed = new byte[length + 1];
+        framed[0] = (byte) flags;
+        System.arraycopy(payload, 0, framed, 1, length);
+
+        final ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(framed));
+        return PREFIX + new String(encoded.array(), 0, encoded.limit(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Decodes items written by {@link #encode(ItemStack[])}, or by {@link Utils#serializeArray(ItemStack[])}.
+     *
+     * @param data The data to decode.
+     * @return The items, or null if the data couldn't be read.
+     */
+    public static @Nullable ItemStack @Nullable [] decode(@NotNull String data) {
+        if (!isEncoded(data))
+            return Utils.deserializeArray(data);
+
+        try {
+            final byte[] framed = Base64.getDecoder().decode(data.substring(PREFIX.length()));
+            if (framed.length == 0)
+                throw new IOException("Missing header");
+
+            byte[] payload = Arrays.copyOfRange(framed, 1, framed.length);
+
+            if ((framed[0] & FLAG_COMPRESSED) != 0)
+                payload = inflate(payload);
+
+            final Input in = new Input(payload);
+            final ItemStack[] items = new ItemStack[in.readCount(1)];
+
+            for (int i = 0; i < items.length; i++)
+                items[i] = (ItemStack) readValue(in);
+
+            return items;
+        } catch (final IOException | DataFormatException | IllegalArgumentException | ClassCastException ex) {
+            Utils.logError(ex);
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks if a string was written by this codec, rather than in the old format.
+     *
+     * @param data The data to check.
+     * @return True if it starts with {@link #PREFIX}.
+     */
+    public static boolean isEncoded(@Nullable String data) {
+        return data != null && data.startsWith(PREFIX);
+    }
+
+    private static byte @NotNull [] inflate(final byte @NotNull [] data) throws DataFormatException {
+        final Buffers buffers = BUFFERS.get();
+        final Output out = buffers.compressed.reset();
+        final Inflater inflater = buffers.inflater;
+
+        inflater.reset();
+        inflater.setInput(data);
+
+        while (!inflater.finished()) {
+            if (out.size >= MAX_INFLATED_SIZE)
+                throw new DataFormatException("Item data inflates to more than " + MAX_INFLATED_SIZE + " bytes");
+
+            out.ensureCapacity(Math.min(out.size + 1024, MAX_INFLATED_SIZE));
+            final int read = inflater.inflate(out.bytes, out.size, out.bytes.length - out.size);
+
+            if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                throw new DataFormatException("Truncated item data");
+
+            out.size += read;
+        }
+
+        return Arrays.copyOf(out.bytes, out.size);
+    }
+
+    private static void writeValue(final @NotNull Output out, final @Nullable Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case String string -> {
+                out.writeByte(STRING);
+                out.writeString(string);
+            }
+            case Integer number -> {
+                out.writeByte(INT);
+                out.writeVarLong(number);
+            }
+            case Long number -> {
+                out.writeByte(LONG);
+                out.writeVarLong(number);
+            }
+            case Double number -> {
+                out.writeByte(DOUBLE);
+                out.writeLong(Double.doubleToRawLongBits(number));
+            }
+            case Float number -> {
+                out.writeByte(FLOAT);
+                out.writeVarLong(Float.floatToRawIntBits(number));
+            }
+            case Short number -> {
+                out.writeByte(SHORT);
+                out.writeVarLong(number);
+            }
+            case Byte number -> {
+                out.writeByte(BYTE);
+                out.writeByte(number);
+            }
+            case Boolean bool -> out.writeByte(bool ? TRUE : FALSE);
+            case ConfigurationSerializable serializable -> {
+                out.writeByte(SERIALIZABLE);
+                out.writeString(ConfigurationSerialization.getAlias(serializable.getClass()));
+                writeMap(out, serializable.serialize());
+            }
+            case Map<?, ?> map -> {
+                out.writeByte(MAP);
+                writeMap(out, map);
+            }
+            // Item meta also serializes sets, such as the item flags, they are written as lists which deserialization accepts.
+            case Collection<?> collection -> {
+                out.writeByte(LIST);
+                out.writeVarInt(collection.size());
+                for (final Object element : collection)
+                    writeValue(out, element);
+            }
+            case Iterable<?> iterable -> {
+                final List<Object> list = new ArrayList<>();
+                iterable.forEach(list::add);
+                writeValue(out, list);
+            }
+            case Object[] array -> writeValue(out, Arrays.asList(array));
+            default -> throw new IOException("Can't encode a value of type " + value.getClass().getName());
+        }
+    }
+
+    private static void writeMap(final @NotNull Output out, final @NotNull Map<?, ?> map) throws IOException {
+        out.writeVarInt(map.size());
+
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            out.writeString(String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static @Nullable Object readValue(final @NotNull Input in) throws IOException {
+        final byte tag = in.readByte();
+
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> in.readString();
+            case INT -> (int) in.readVarLong();
+            case LONG -> in.readVarLong();
+            case DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case FLOAT -> Float.intBitsToFloat((int) in.readVarLong());
+            case SHORT -> (short) in.readVarLong();
+            case BYTE -> in.readByte();
+            case TRUE -> true;
+            case FALSE -> false;
+            case LIST -> {
+                in.enter();
+                final int size = in.readCount(1);
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    list.add(readValue(in));
+                in.exit();
+                yield list;
+            }
+            case MAP -> {
+                in.enter();
+                final Map<String, Object> map = readMap(in);
+                in.exit();
+                yield map;
+            }
+            case SERIALIZABLE -> {
+                final String alias = in.readString();
+                in.enter();
+                final Map<String, Object> map = readMap(in);
+                in.exit();
+                map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+
+                final ConfigurationSerializable value = ConfigurationSerialization.deserializeObject(map);
+                if (value == null)
+                    throw new IOException("Failed to deserialize a value of type " + alias);
+                yield value;
+            }
+            default -> throw new IOException("Unknown value tag " + tag);
+        };
+    }
+
+    private static @NotNull Map<String, Object> readMap(final @NotNull Input in) throws IOException {
+        // Every entry is at least the length of its key and the tag of its value.
+        final int size = in.readCount(2);
+        final Map<String, Object> map = new LinkedHashMap<>(Math.max(4, size * 2));
+
+        for (int i = 0; i < size; i++)
+            map.put(in.readString(), readValue(in));
+
+        return map;
+    }
+
+    // A growable byte array that is reused instead of reallocated.
+    private static final class Output {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        private Output reset() {
+            size = 0;
+            return this;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+
+        private void writeByte(final int value) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) value;
+        }
+
+        private void write(final byte @NotNull [] data, final int offset, final int length) {
+            ensureCapacity(size + length);
+            System.arraycopy(data, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void writeVarInt(final int value) {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                writeByte((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            writeByte(remaining);
+        }
+
+        // Zigzag encoded, so small negative numbers stay small as well.
+        private void writeVarLong(final long value) {
+            long remaining = (value << 1) ^ (value >> 63);
+            while ((remaining & ~0x7FL) != 0) {
+                writeByte((int) (remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            writeByte((int) remaining);
+        }
+
+        private void writeLong(final long value) {
+            for (int shift = 56; shift >= 0; shift -= 8)
+                writeByte((int) (value >>> shift));
+        }
+
+        private void writeString(final @NotNull String value) {
+            final byte[] data = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(data.length);
+            write(data, 0, data.length);
+        }
+    }
+
+    // Reads what an Output wrote.
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+        private int depth;
+
+        private Input(final byte @NotNull [] bytes) {
+            this.bytes = bytes;
+        }
+
+        private byte readByte() throws IOException {
+            if (position >= bytes.length)
+                throw new IOException("Unexpected end of item data");
+            return bytes[position++];
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new IOException("Malformed number in item data");
+        }
+
+        // Reads the size of an array, list or map, which can't be more than the bytes left could hold.
+        private int readCount(final int minBytesPerElement) throws IOException {
+            final int count = readVarInt();
+            if (count < 0 || (long) count * minBytesPerElement > bytes.length - position)
+                throw new IOException("Invalid element count " + count + " in item data");
+            return count;
+        }
+
+        private void enter() throws IOException {
+            if (++depth > MAX_DEPTH)
+                throw new IOException("Item data is nested too deeply");
+        }
+
+        private void exit() {
+            depth--;
+        }
+
+        private long readVarLong() throws IOException {
+            long raw = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                final byte b = readByte();
+                raw |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return (raw >>> 1) ^ -(raw & 1);
+            }
+            throw new IOException("Malformed number in item data");
+        }
+
+        private long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++)
+                value = (value << 8) | (readByte() & 0xFF);
+            return value;
+        }
+
+        private @NotNull String readString() throws IOException {
+            final int length = readVarInt();
+            if (length < 0 || position + length > bytes.length)
+                throw new IOException("Unexpected end of item data");
+
+            final String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+    // The reusable state of one thread.
+    private static final class Buffers {
+        private final Output output = new Output();
+        private final Output item = new Output();
+        private final Output compressed = new Output();
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final Inflater inflater = new Inflater();
+    }
+}
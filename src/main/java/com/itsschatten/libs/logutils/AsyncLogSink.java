@@ -0,0 +1,258 @@
+package com.itsschatten.libs.logutils;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Hands log records to a single background thread, so the thread that logs never waits on the console.
+ * <p>
+ * Records are kept in a bounded queue, what happens when it's full is decided by the {@link OverflowPolicy}.
+ * Records are written in the order they were queued, {@link #shutdown(long)} writes anything left before returning.
+ *
+ * @see com.itsschatten.libs.Utils#setLogSink(AsyncLogSink)
+ */
+public final class AsyncLogSink {
+
+    /**
+     * The most records the writer takes from the queue at once.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * The logger records are written to.
+     * -- GETTER --
+     * Gets the logger records are written to.
+     *
+     * @return The logger.
+     */
+    @Getter
+    private final Logger logger;
+
+    /**
+     * What to do when the queue is full.
+     * -- GETTER --
+     * Gets what is done when the queue is full.
+     *
+     * @return The overflow policy.
+     */
+    @Getter
+    private final OverflowPolicy policy;
+
+    private final ArrayBlockingQueue<LogRecord> queue;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates a sink and starts its writer thread.
+     *
+     * @param logger   The logger to write records to.
+     * @param capacity The most records that may wait to be written.
+     * @param policy   What to do when that many records are waiting.
+     */
+    public AsyncLogSink(@NotNull Logger logger, int capacity, @NotNull OverflowPolicy policy) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity of a log sink must be at least 1, got " + capacity + ".");
+
+        this.logger = logger;
+        this.policy = policy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.writer = new Thread(this::drain, "ShadowLibs Log Writer (" + logger.getName() + ")");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a message to be logged.
+     *
+     * @param level   The level to log at.
+     * @param message The message, it may span multiple lines.
+     */
+    public void log(@NotNull Level level, @NotNull String message) {
+        submit(new LogRecord(level, message));
+    }
+
+    /**
+     * Queues a record to be logged, once the sink is shut down records are logged on the calling thread.
+     *
+     * @param record The record.
+     */
+    public void submit(@NotNull LogRecord record) {
+        if (!running) {
+            logger.log(record);
+            return;
+        }
+
+        switch (policy) {
+            case DROP_NEWEST -> {
+                if (!queue.offer(record))
+                    dropped.increment();
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(record)) {
+                    if (queue.poll() != null)
+                        dropped.increment();
+                }
+            }
+            case BLOCK -> {
+                try {
+                    while (!queue.offer(record, 100, TimeUnit.MILLISECONDS)) {
+                        // The writer stopped while this thread was waiting.
+                        if (!running) {
+                            logger.log(record);
+                            return;
+                        }
+                    }
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+            case CALLER_RUNS -> {
+                if (!queue.offer(record))
+                    logger.log(record);
+            }
+        }
+
+        // Shutdown started while this record was being queued and may have drained the queue already.
+        if (!running)
+            writeQueued();
+    }
+
+    /**
+     * @return How many records were dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return How many records are waiting to be written.
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * @return True until {@link #shutdown(long)} is called.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops the writer thread and writes everything still queued.
+     * Anything logged afterwards, including by threads that were in the middle of logging, is written on the calling thread.
+     *
+     * @param timeoutMillis How long to wait for the writer thread to finish its current batch.
+     */
+    public void shutdown(long timeoutMillis) {
+        if (!running)
+            return;
+
+        running = false;
+
+        try {
+            writer.join(timeoutMillis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Whatever the writer didn't get to.
+        writeQueued();
+
+        final long lost = getDropped();
+        if (lost > 0)
+            logger.warning("Dropped " + lost + " log records because the log queue was full.");
+    }
+
+    // The writer thread, writes records until the sink is shut down, shutdown writes the rest.
+    private void drain() {
+        final List<LogRecord> batch = new ArrayList<>(BATCH_SIZE);
+
+        while (running) {
+            try {
+                final LogRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+
+                for (final LogRecord record : batch)
+                    write(record);
+            } catch (final InterruptedException ex) {
+                // Only shutdown stops this thread.
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Writes everything still queued on the calling thread.
+    private void writeQueued() {
+        LogRecord record;
+        while ((record = queue.poll()) != null)
+            write(record);
+    }
+
+    // Writes one record, a record that fails is reported so the rest of the batch is still written.
+    private void write(final @NotNull LogRecord record) {
+        try {
+            logger.log(record);
+        } catch (final RuntimeException ex) {
+            reportError("Failed to write a log record.", ex);
+        }
+    }
+
+    // Logging through the logger that just failed could fail again, so this goes to the error manager of its handler instead.
+    private void reportError(final @NotNull String message, final @NotNull Exception ex) {
+        for (Logger current = logger; current != null; current = current.getUseParentHandlers() ? current.getParent() : null) {
+            final Handler[] handlers = current.getHandlers();
+
+            if (handlers.length > 0) {
+                handlers[0].getErrorManager().error(message, ex, ErrorManager.WRITE_FAILURE);
+                return;
+            }
+        }
+
+        new ErrorManager().error(message, ex, ErrorManager.WRITE_FAILURE);
+    }
+
+    /**
+     * What to do with a record when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the record that was just logged.
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the record that has waited the longest, so the latest records are kept.
+         */
+        DROP_OLDEST,
+        /**
+         * Wait until there is room in the queue.
+         */
+        BLOCK,
+        /**
+         * Write the record on the calling thread.
+         */
+        CALLER_RUNS
+    }
+}
@@ -0,0 +1,241 @@
+package com.itsschatten.libs.logutils;
+
+import com.itsschatten.libs.Utils;
+import lombok.Getter;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the same error from being logged over and over.
+ * <p>
+ * Errors are the same when they are of the same type and thrown from the same top stack frames.
+ * The first one is logged in full, any more within the window are only counted, and once the window is over a single
+ * "Suppressed N identical errors" line is logged for them. An error that stops for a whole window is logged in full again the next time.
+ *
+ * @see Utils#setErrorDeduplicator(ErrorDeduplicator)
+ */
+public final class ErrorDeduplicator {
+
+    /**
+     * The most different errors that are tracked, errors past this are always logged.
+     */
+    private static final int MAX_ENTRIES = 1024;
+
+    /**
+     * How long identical errors are counted before a summary is logged.
+     * -- GETTER --
+     * Gets how long identical errors are counted before a summary is logged.
+     *
+     * @return The window.
+     */
+    @Getter
+    private final Duration window;
+
+    /**
+     * How many of the top stack frames are compared.
+     * -- GETTER --
+     * Gets how many of the top stack frames are compared.
+     *
+     * @return The amount of frames.
+     */
+    @Getter
+    private final int frames;
+
+    private final long windowMillis;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a deduplicator that counts errors for 60 seconds and compares the top 5 frames.
+     */
+    public ErrorDeduplicator() {
+        this(Duration.ofSeconds(60), 5);
+    }
+
+    /**
+     * Creates a deduplicator.
+     *
+     * @param window How long identical errors are counted before a summary is logged.
+     * @param frames How many of the top stack frames are compared.
+     */
+    public ErrorDeduplicator(@NotNull Duration window, int frames) {
+        if (window.isNegative() || window.isZero())
+            throw new IllegalArgumentException("The window of an error deduplicator must be positive, got " + window + ".");
+
+        this.window = window;
+        this.windowMillis = window.toMillis();
+        this.frames = Math.max(0, frames);
+    }
+
+    /**
+     * Counts an error and decides if it should be logged in full.
+     * If the window of an earlier identical error is over, its summary is logged first.
+     *
+     * @param error The error.
+     * @return True if the error should be logged, false if it was suppressed.
+     */
+    public boolean shouldLog(@NotNull Throwable error) {
+        final StackTraceElement[] trace = error.getStackTrace();
+        final Key key = new Key(error.getClass(), Arrays.copyOf(trace, Math.min(frames, trace.length)));
+        final long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= MAX_ENTRIES)
+                return true;
+
+            final Entry created = new Entry(key, now);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null)
+                return true;
+        }
+
+        return entry.hit(now);
+    }
+
+    /**
+     * Logs the summary of every window that is over, and forgets errors that didn't happen during their last window.
+     * Without calling this, a summary is only logged when the same error happens again.
+     *
+     * @see #scheduleSummaries(JavaPlugin)
+     */
+    public void flushSummaries() {
+        final long now = System.currentTimeMillis();
+
+        for (final Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().expire(now))
+                iterator.remove();
+        }
+    }
+
+    /**
+     * Runs {@link #flushSummaries()} from an async task every second.
+     *
+     * @param plugin The plugin to run the task for.
+     * @return The task.
+     */
+    public @NotNull BukkitTask scheduleSummaries(@NotNull JavaPlugin plugin) {
+        return plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::flushSummaries, 20L, 20L);
+    }
+
+    /**
+     * Forgets every tracked error, without logging their summaries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets what is known about every tracked error, for diagnostics.
+     *
+     * @return A copy of the tracked errors.
+     */
+    public @NotNull List<Stats> getEntries() {
+        final List<Stats> stats = new ArrayList<>(entries.size());
+        for (final Entry entry : entries.values())
+            stats.add(entry.stats());
+        return stats;
+    }
+
+    /**
+     * What is known about an error.
+     *
+     * @param type       The class name of the error.
+     * @param location   Where it was thrown, the top stack frame.
+     * @param total      How many times it happened since it was first seen.
+     * @param suppressed How many times it happened in the current window without being logged.
+     * @param firstSeen  When it was first seen, in epoch milliseconds.
+     * @param lastSeen   When it was last seen, in epoch milliseconds.
+     */
+    public record Stats(String type, String location, long total, long suppressed, long firstSeen, long lastSeen) {
+    }
+
+    /**
+     * An error type and its top frames.
+     */
+    private record Key(Class<?> type, StackTraceElement[] frames) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && type == key.type && Arrays.equals(frames, key.frames);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Arrays.hashCode(frames);
+        }
+
+        private @NotNull String location() {
+            return frames.length == 0 ? "unknown" : frames[0].toString();
+        }
+    }
+
+    /**
+     * The counts of one error, guarded by itself.
+     */
+    private final class Entry {
+        private final Key key;
+        private final long firstSeen;
+        private long lastSeen;
+        private long windowStart;
+        private long total = 1;
+        private long suppressed;
+
+        private Entry(final Key key, final long now) {
+            this.key = key;
+            this.firstSeen = now;
+            this.lastSeen = now;
+            this.windowStart = now;
+        }
+
+        // Counts an occurrence, true if it should be logged.
+        private synchronized boolean hit(final long now) {
+            total++;
+            lastSeen = now;
+
+            if (now - windowStart < windowMillis) {
+                suppressed++;
+                return false;
+            }
+
+            // The window is over, a quiet window means this is logged in full again.
+            final boolean quiet = suppressed == 0;
+            summarize();
+            windowStart = now;
+            suppressed = quiet ? 0 : 1;
+            return quiet;
+        }
+
+        // Logs the summary if the window is over, true if the error can be forgotten.
+        private synchronized boolean expire(final long now) {
+            if (now - windowStart < windowMillis)
+                return false;
+
+            if (suppressed == 0)
+                return true;
+
+            summarize();
+            windowStart = now;
+            suppressed = 0;
+            return false;
+        }
+
+        private void summarize() {
+            if (suppressed > 0)
+                Utils.logError("Suppressed " + suppressed + " identical errors in the last " + window.toSeconds() + "s: "
+                        + key.type().getName() + " at " + key.location());
+        }
+
+        private synchronized @NotNull Stats stats() {
+            return new Stats(key.type().getName(), key.location(), total, suppressed, firstSeen, lastSeen);
+        }
+    }
+}
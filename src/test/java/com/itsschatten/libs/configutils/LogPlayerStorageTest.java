@@ -0,0 +1,216 @@
+package com.itsschatten.libs.configutils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogPlayerStorageTest {
+
+    private static final UUID FIRST = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final UUID SECOND = UUID.fromString("853c80ef-3c37-49fd-aa49-938b674adae6");
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void loadsWhatWasSaved() throws IOException {
+        final LogPlayerStorage storage = open();
+
+        storage.save(FIRST, "coins: 10\n");
+        storage.save(FIRST, "coins: 20\n");
+
+        assertEquals("coins: 20\n", storage.load(FIRST));
+        assertNull(storage.load(SECOND));
+        assertTrue(storage.exists(FIRST));
+        assertFalse(storage.exists(SECOND));
+
+        storage.close();
+    }
+
+    @Test
+    void replaysTheLatestRecordsWhenReopened() throws IOException {
+        LogPlayerStorage storage = open();
+
+        storage.save(FIRST, "coins: 10\n");
+        storage.save(SECOND, "name: Notch\n");
+        storage.save(FIRST, "coins: 30\n");
+        assertTrue(storage.delete(SECOND));
+        storage.close();
+
+        storage = open();
+
+        assertEquals("coins: 30\n", storage.load(FIRST));
+        assertNull(storage.load(SECOND));
+        assertFalse(storage.exists(SECOND));
+        assertEquals(0, storage.getDroppedBytes());
+
+        storage.close();
+    }
+
+    @Test
+    void dropsATruncatedTail() throws IOException {
+        LogPlayerStorage storage = open();
+
+        storage.save(FIRST, "coins: 10\n");
+        storage.save(SECOND, "name: Notch\n");
+        storage.close();
+
+        try (final RandomAccessFile file = new RandomAccessFile(file(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        storage = open();
+
+        assertEquals("coins: 10\n", storage.load(FIRST));
+        assertFalse(storage.exists(SECOND));
+        assertTrue(storage.getDroppedBytes() > 0);
+
+        // Appending after the dropped tail works and survives another reopen.
+        storage.save(SECOND, "name: jeb_\n");
+        storage.close();
+
+        storage = open();
+
+        assertEquals("name: jeb_\n", storage.load(SECOND));
+        assertEquals(0, storage.getDroppedBytes());
+
+        storage.close();
+    }
+
+    @Test
+    void dropsAZeroFilledTail() throws IOException {
+        LogPlayerStorage storage = open();
+
+        storage.save(FIRST, "coins: 10\n");
+        storage.close();
+
+        Files.write(folder.resolve("players.db"), new byte[64], StandardOpenOption.APPEND);
+
+        storage = open();
+
+        assertEquals("coins: 10\n", storage.load(FIRST));
+        assertEquals(64, storage.getDroppedBytes());
+        assertTrue(storage.exists(FIRST));
+        assertFalse(storage.exists(new UUID(0, 0)));
+
+        storage.close();
+    }
+
+    @Test
+    void skipsACorruptRecordInTheMiddle() throws IOException {
+        LogPlayerStorage storage = open();
+
+        storage.save(FIRST, "coins: 10\n");
+        storage.save(SECOND, "name: Notch\n");
+        storage.close();
+
+        // Flip a byte in the YAML of the first record, its checksum no longer matches.
+        try (final RandomAccessFile file = new RandomAccessFile(file(), "rw")) {
+            final long position = 4 + 24 + 2;
+            file.seek(position);
+            final int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+
+        storage = open();
+
+        assertFalse(storage.exists(FIRST));
+        assertEquals("name: Notch\n", storage.load(SECOND));
+        assertTrue(storage.getDroppedBytes() > 0);
+        assertTrue(Files.size(file().toPath()) > storage.getDroppedBytes());
+
+        storage.close();
+    }
+
+    @Test
+    void skipsARecordWithACorruptLength() throws IOException {
+        LogPlayerStorage storage = open();
+
+        storage.save(FIRST, "coins: 10\n");
+        storage.save(SECOND, "name: Notch\n");
+        storage.close();
+
+        // Make the first record claim to be longer than the whole file.
+        try (final RandomAccessFile file = new RandomAccessFile(file(), "rw")) {
+            file.seek(4 + 16);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        storage = open();
+
+        assertFalse(storage.exists(FIRST));
+        assertEquals("name: Notch\n", storage.load(SECOND));
+
+        storage.save(FIRST, "coins: 20\n");
+        storage.close();
+
+        // The damaged record is still skipped, only compacting removes it.
+        storage = open();
+        assertEquals("coins: 20\n", storage.load(FIRST));
+        assertEquals(24 + 10, storage.getDroppedBytes());
+
+        storage.compact();
+        storage.close();
+
+        storage = open();
+        assertEquals("coins: 20\n", storage.load(FIRST));
+        assertEquals("name: Notch\n", storage.load(SECOND));
+        assertEquals(0, storage.getDroppedBytes());
+        storage.close();
+    }
+
+    @Test
+    void compactingKeepsTheLatestRecords() throws IOException {
+        LogPlayerStorage storage = open();
+
+        for (int i = 0; i < 100; i++)
+            storage.save(FIRST, "coins: " + i + "\n");
+
+        storage.save(SECOND, "name: Notch\n");
+        storage.delete(SECOND);
+
+        final long before = file().length();
+        storage.compact();
+
+        assertTrue(file().length() < before);
+        assertEquals("coins: 99\n", storage.load(FIRST));
+        storage.close();
+
+        storage = open();
+
+        assertEquals("coins: 99\n", storage.load(FIRST));
+        assertFalse(storage.exists(SECOND));
+        assertEquals(0, storage.getDroppedBytes());
+
+        storage.close();
+    }
+
+    @Test
+    void refusesOtherFiles() throws IOException {
+        Files.writeString(folder.resolve("players.db"), "not a storage file");
+
+        assertThrows(IOException.class, this::open);
+    }
+
+    private LogPlayerStorage open() throws IOException {
+        return new LogPlayerStorage(file());
+    }
+
+    private File file() {
+        return folder.resolve("players.db").toFile();
+    }
+}
@@ -0,0 +1,96 @@
+package com.itsschatten.libs.configutils;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerConfigManagerTest {
+
+    private static final UUID OWNER = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    @TempDir
+    Path folder;
+
+    @AfterEach
+    void unload() {
+        PlayerConfigManager.removeConfig(OWNER);
+    }
+
+    @Test
+    void keepsTheConfigOfTheSamePath() {
+        final Player player = player();
+        final String path = folder.resolve("first").toString();
+
+        final PlayerConfigManager config = PlayerConfigManager.getConfig(player, path);
+
+        assertSame(config, PlayerConfigManager.getConfig(player, path));
+        assertSame(config, PlayerConfigManager.getLoadedConfig(OWNER));
+    }
+
+    @Test
+    void switchesToTheConfigOfAnotherPath() throws IOException {
+        final Player player = player();
+        final String first = folder.resolve("first").toString();
+        final String second = folder.resolve("second").toString();
+
+        final PlayerConfigManager firstConfig = PlayerConfigManager.getConfig(player, first);
+        firstConfig.getConfig().set("coins", 10);
+
+        final PlayerConfigManager secondConfig = PlayerConfigManager.getConfig(player, second);
+
+        assertNotSame(firstConfig, secondConfig);
+        assertSame(secondConfig, PlayerConfigManager.getLoadedConfig(OWNER));
+        assertFalse(secondConfig.getConfig().contains("coins"));
+
+        // The config that was replaced had unsaved changes, they were saved to its own folder.
+        ConfigPersistence.flushAll();
+        final Path file = folder.resolve("first").resolve(OWNER + ".yml");
+        assertTrue(Files.exists(file));
+        assertEquals(10, PlayerConfigManager.getConfig(player, first).getConfig().getInt("coins"));
+    }
+
+    @Test
+    void tracksUnsavedChanges() {
+        final Player player = player();
+        final String path = folder.resolve("first").toString();
+
+        PlayerConfigManager config = PlayerConfigManager.getConfig(player, path);
+        assertFalse(config.hasUnsavedChanges());
+
+        config.getConfig().set("coins", 10);
+        assertTrue(config.hasUnsavedChanges());
+
+        config.saveConfig();
+        assertFalse(config.hasUnsavedChanges());
+
+        // Loaded again from the file it was saved to.
+        PlayerConfigManager.removeConfig(OWNER);
+        config = PlayerConfigManager.getConfig(player, path);
+        assertEquals(10, config.getConfig().getInt("coins"));
+        assertFalse(config.hasUnsavedChanges());
+    }
+
+    private static @NotNull Player player() {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "getUniqueId" -> OWNER;
+                    case "hashCode" -> OWNER.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,84 @@
+package com.itsschatten.libs.inventories;
+
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ItemCodecTest {
+
+    @BeforeAll
+    static void register() {
+        ConfigurationSerialization.registerClass(DataItem.class);
+    }
+
+    @Test
+    void keepsSetValuedMeta() {
+        final Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("ItemFlags", new LinkedHashSet<>(List.of("HIDE_ENCHANTS", "HIDE_ATTRIBUTES")));
+        meta.put("display-name", "Backpack");
+
+        final ItemStack[] items = ItemCodec.decode(ItemCodec.encode(new ItemStack[]{new DataItem(meta), null}));
+
+        assertNotNull(items);
+        assertEquals(2, items.length);
+        assertNull(items[1]);
+
+        final DataItem item = assertInstanceOf(DataItem.class, items[0]);
+        assertEquals(List.of("HIDE_ENCHANTS", "HIDE_ATTRIBUTES"), item.serialize().get("ItemFlags"));
+        assertEquals("Backpack", item.serialize().get("display-name"));
+    }
+
+    @Test
+    void keepsLargeCompressedData() {
+        final Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("lore", List.of("a".repeat(400), "b".repeat(400)));
+
+        final ItemStack[] items = ItemCodec.decode(ItemCodec.encode(new ItemStack[]{new DataItem(meta)}));
+
+        assertNotNull(items);
+        assertEquals(meta.get("lore"), assertInstanceOf(DataItem.class, items[0]).serialize().get("lore"));
+    }
+
+    @Test
+    void refusesItemsItCantEncode() {
+        final Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("unknown", new Object());
+
+        assertThrows(IllegalArgumentException.class, () -> ItemCodec.encode(new ItemStack[]{new DataItem(meta)}));
+    }
+
+    /**
+     * An item that serializes to the data it was given, so no server is needed to create its meta.
+     */
+    public static final class DataItem extends ItemStack {
+        private final Map<String, Object> data;
+
+        DataItem(final @NotNull Map<String, Object> data) {
+            this.data = data;
+        }
+
+        public static @NotNull DataItem deserialize(final @NotNull Map<String, Object> map) {
+            final Map<String, Object> data = new LinkedHashMap<>(map);
+            data.remove(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+            return new DataItem(data);
+        }
+
+        @Override
+        public @NotNull Map<String, Object> serialize() {
+            return data;
+        }
+    }
+}